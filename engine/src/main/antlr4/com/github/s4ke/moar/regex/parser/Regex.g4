@@ -32,6 +32,7 @@ basicRegex :
     star
     | plus
     | orEpsilon
+    | repetition
     | elementaryRegex;
 
 star :
@@ -40,6 +41,12 @@ plus :
     elementaryRegex '+';
 orEpsilon:
     elementaryRegex '?';
+repetition :
+    elementaryRegex '{' minCount (countSeparator maxCount?)? '}';
+minCount : count;
+maxCount : count;
+countSeparator : ',';
+count : (ZERO | ONE_TO_NINE)+;
 
 elementaryRegex :
     backRef
@@ -104,11 +111,12 @@ charOrEscaped :
 // (the ones that are not explicitly mentioned) is therefore tokenized
 // into UNUSED_CHAR.
 // This approach is by far easier than a hand written parser, though.
-character : (UNUSED_CHARS | ZERO | ONE_TO_NINE | 's' | 'S' | 'd' | 'D' | 'w' | 'W' | 'k' | 'z' | 'G' | ':' | '<' | '>' );
+character : (UNUSED_CHARS | ZERO | ONE_TO_NINE | 's' | 'S' | 'd' | 'D' | 'w' | 'W' | 'k' | 'z' | 'G' | ':' | '<' | '>' | '{' | '}' | ',' );
 escapeSeq : ESC escapee;
 escapee : '[' | ']' | '(' | ')'
     | ESC | ANY | EOS | START | UTF_32_MARKER
     | '*' | '+' | '?'
+    | '{' | '}'
     | '-' ;
 utf32 : (character | escapeSeq)+;
 
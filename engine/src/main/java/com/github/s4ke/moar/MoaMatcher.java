@@ -86,11 +86,65 @@ public interface MoaMatcher {
 	 */
 	boolean nextMatch();
 
+	/**
+	 * tells whether the underlying {@link MoaPattern} has a match anywhere in the input, i.e. whether
+	 * {@link #nextMatch()} would return true on a fresh matcher. This stops as soon as a match is certain
+	 * (without running on to its end) and doesn't keep track of capturing groups that are not read by
+	 * backreferences, so it is cheaper than calling {@link #nextMatch()}.
+	 * The matcher is reset afterwards
+	 * <p/>
+	 * The default implementation just calls {@link #nextMatch()}, so it only searches from where the last
+	 * call stopped and leaves the matcher after the match it found. Implementations should override it
+	 *
+	 * @return true iff there is a match
+	 */
+	default boolean contains() {
+		return this.nextMatch();
+	}
+
+	/**
+	 * counts the matches {@link #nextMatch()} would find on a fresh matcher, except that an empty match is
+	 * only counted once at every position. This doesn't keep track of capturing groups that are not read by
+	 * backreferences, so it is cheaper than calling {@link #nextMatch()} repeatedly.
+	 * The matcher is reset afterwards
+	 * <p/>
+	 * The default implementation calls {@link #nextMatch()} until it returns false, so it only counts from where
+	 * the last call stopped and leaves the matcher at the end. As {@link #nextMatch()} can't get past an empty match
+	 * on its own, it stops counting at the first one. Implementations should override it
+	 *
+	 * @return the number of matches
+	 */
+	default int count() {
+		int count = 0;
+		while ( this.nextMatch() ) {
+			++count;
+			if ( this.getStart() == this.getEnd() ) {
+				break;
+			}
+		}
+		return count;
+	}
+
 	/**
 	 * treats the whole input atomically and tries to match the underlying {@link MoaPattern} against it
 	 */
 	boolean matches();
 
+	/**
+	 * tells whether the last call of {@link #matches()} or {@link #nextMatch()} hit the end of the input
+	 * while it could still have read more. If this returns false after {@link #matches()}, no longer String
+	 * that starts with the current input can be matched, so consumers that look at inputs
+	 * by their prefixes can stop early.
+	 *
+	 * <p/>
+	 * The default implementation always returns true, which never lets a consumer stop too early
+	 *
+	 * @return true iff more input could have changed the result of the last call
+	 */
+	default boolean hitEnd() {
+		return true;
+	}
+
 	/**
 	 * @param occurence the variable occurence index to return (1-based)
 	 * @return the contents of the variable as a String
@@ -23,6 +23,8 @@
  */
 package com.github.s4ke.moar;
 
+import java.nio.ByteBuffer;
+
 import com.github.s4ke.moar.moa.Moa;
 import com.github.s4ke.moar.regex.Regex;
 import com.github.s4ke.moar.regex.parser.RegexCompiler;
@@ -38,12 +40,22 @@ import com.github.s4ke.moar.util.CharSeq;
  */
 public final class MoaPattern {
 
+	/**
+	 * Enables case-insensitive matching of the US-ASCII letters, just like {@link java.util.regex.Pattern#CASE_INSENSITIVE}
+	 * (the value is the same as well). The pattern is folded to lower case when it is compiled and the input is folded
+	 * the same way while matching, so the resulting automaton has the same states as the case-sensitive one.
+	 * Backreferences match their group ignoring case as well
+	 */
+	public static final int CASE_INSENSITIVE = 0x02;
+
 	private final Moa moa;
 	private final String regex;
+	private final PatternInfo info;
 
 	private MoaPattern(Moa moa, String regex) {
 		this.moa = moa;
 		this.regex = regex;
+		this.info = PatternInfo.of( moa.getFrozenEdges() );
 	}
 
 	/**
@@ -61,8 +73,24 @@ public final class MoaPattern {
 	 * @return the {@link MoaPattern} that represents the given Regex String
 	 */
 	public static MoaPattern compile(String regexStr) {
+		return compile( regexStr, 0 );
+	}
+
+	/**
+	 * compiles the given Regex String into a {@link MoaPattern} with the given flags.
+	 *
+	 * @param regexStr the Regex String to parse into a {@link MoaPattern}
+	 * @param flags a bit mask of the flags to use, currently only {@link #CASE_INSENSITIVE}
+	 *
+	 * @return the {@link MoaPattern} that represents the given Regex String
+	 */
+	public static MoaPattern compile(String regexStr, int flags) {
+		if ( (flags & ~CASE_INSENSITIVE) != 0 ) {
+			throw new IllegalArgumentException( "unknown flags: " + flags );
+		}
+		boolean caseInsensitive = (flags & CASE_INSENSITIVE) != 0;
 		try {
-			return new MoaPattern( RegexCompiler.compile( regexStr ).toMoa(), regexStr );
+			return new MoaPattern( RegexCompiler.compile( regexStr, caseInsensitive ).toMoa( caseInsensitive ), regexStr );
 		}
 		catch (NonDeterministicException e) {
 			throw new NonDeterministicException( "The regex \"" + regexStr + "\" is not deterministic", e );
@@ -115,6 +143,40 @@ public final class MoaPattern {
 		return this.moa.matcher( seq );
 	}
 
+	/**
+	 * constructs a {@link MoaUtf8Matcher} for matching against UTF-8 encoded bytes without decoding them
+	 * (patterns with capturing groups, backreferences or boundaries still need to decode them).
+	 * All positions are reported as byte offsets relative to the given offset
+	 *
+	 * @param utf8 the bytes to match against, they are not copied
+	 * @param offset the start of the input in the given array
+	 * @param length the number of bytes of the input
+	 *
+	 * @return the resulting {@link MoaUtf8Matcher}
+	 */
+	public MoaUtf8Matcher matcher(byte[] utf8, int offset, int length) {
+		return this.moa.matcher( utf8, offset, length );
+	}
+
+	/**
+	 * same as {@link MoaPattern#matcher(byte[], int, int)} but for the remaining bytes of the given buffer
+	 * (its position is not changed). Buffers that are not backed by an array are copied
+	 *
+	 * @param utf8 the buffer to match against
+	 *
+	 * @return the resulting {@link MoaUtf8Matcher}
+	 */
+	public MoaUtf8Matcher matcher(ByteBuffer utf8) {
+		return this.moa.matcher( new byte[0], 0, 0 ).reuse( utf8 );
+	}
+
+	/**
+	 * @return information about this pattern like the bounds for the length of its matches
+	 */
+	public PatternInfo getInfo() {
+		return this.info;
+	}
+
 	/**
 	 * <b>EXPERTS-ONLY</b>
 	 * direct access to the underlying {@link Moa}
@@ -0,0 +1,61 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar;
+
+import java.nio.ByteBuffer;
+
+import com.github.s4ke.moar.util.CharSeq;
+
+/**
+ * {@link MoaMatcher} that works on UTF-8 encoded bytes. All positions ({@link #getStart()}, {@link #getEnd()})
+ * are byte offsets relative to the start of the input range. {@link #reuse(CharSequence)} and
+ * {@link #reuse(CharSeq)} encode the given input into UTF-8 so that this still holds.
+ * <p/>
+ * The input is expected to be well-formed UTF-8, how malformed sequences are matched is unspecified.
+ *
+ * @author Martin Braun
+ */
+public interface MoaUtf8Matcher extends MoaMatcher {
+
+	/**
+	 * reuse this instance with the given UTF-8 encoded bytes. The bytes are not copied, so they must
+	 * not be changed while this instance is used with them
+	 *
+	 * @param utf8 the bytes to match against
+	 * @param offset the start of the input in the given array
+	 * @param length the number of bytes of the input
+	 * @return this (for chaining purposes)
+	 */
+	MoaUtf8Matcher reuse(byte[] utf8, int offset, int length);
+
+	/**
+	 * reuse this instance with the remaining bytes of the given buffer (its position is not changed).
+	 * Buffers that are not backed by an array are copied
+	 *
+	 * @param utf8 the buffer to match against
+	 * @return this (for chaining purposes)
+	 */
+	MoaUtf8Matcher reuse(ByteBuffer utf8);
+
+}
@@ -0,0 +1,266 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import com.github.s4ke.moar.moa.edgegraph.FirstCodePoints;
+import com.github.s4ke.moar.moa.edgegraph.FrozenEdgeGraph;
+
+/**
+ * Information about a {@link MoaPattern} that is computed once when it is compiled,
+ * e.g. the bounds for the length of its matches and literals every match starts
+ * or ends with.
+ *
+ * @author Martin Braun
+ */
+public final class PatternInfo {
+
+	/**
+	 * there is no upper bound for the length of a match
+	 */
+	public static final int UNBOUNDED = FrozenEdgeGraph.UNBOUNDED;
+
+	private final int minLength;
+	private final int maxLength;
+	private final boolean backReferences;
+	private final boolean anchoredAtLineStart;
+	private final boolean anchoredAtLastMatch;
+	private final boolean anchoredAtEndOfInput;
+	private final String literalPrefix;
+	private final String literalSuffix;
+	private final FirstCodePoints firstCodePoints;
+
+	private PatternInfo(FrozenEdgeGraph edges) {
+		this.minLength = edges.getMinMatchLength();
+		this.maxLength = edges.getMaxMatchLength();
+		this.backReferences = edges.hasBackReferences();
+		this.anchoredAtLineStart = edges.getStartAnchor() == FrozenEdgeGraph.ANCHOR_LINE_START;
+		this.anchoredAtLastMatch = edges.getStartAnchor() == FrozenEdgeGraph.ANCHOR_LAST_MATCH;
+		this.anchoredAtEndOfInput = edges.isAnchoredAtEndOfInput();
+		this.literalPrefix = literalPrefix( edges );
+		this.literalSuffix = literalSuffix( edges );
+		this.firstCodePoints = edges.getFirstCodePoints();
+	}
+
+	static PatternInfo of(FrozenEdgeGraph edges) {
+		return new PatternInfo( edges );
+	}
+
+	/**
+	 * walks forward from SRC as long as all states reached after reading the same number of
+	 * code points only allow for the same static code point to be read next
+	 */
+	private static String literalPrefix(FrozenEdgeGraph edges) {
+		StringBuilder ret = new StringBuilder();
+		BitSet current = new BitSet( edges.getStateCount() );
+		current.set( FrozenEdgeGraph.SRC );
+		while ( ret.length() < edges.getStateCount() ) {
+			//bound states don't read anything, so their successors are read at the same position
+			for ( int state = current.nextSetBit( 0 ); state != -1; state = current.nextSetBit( state + 1 ) ) {
+				int boundEdge = edges.getBoundEdge( state );
+				if ( boundEdge != -1 ) {
+					current.set( edges.getDestination( boundEdge ) );
+				}
+			}
+			int codePoint = -1;
+			BitSet next = new BitSet( edges.getStateCount() );
+			for ( int state = current.nextSetBit( 0 ); state != -1; state = current.nextSetBit( state + 1 ) ) {
+				//counted states might read their code point again instead of going on
+				if ( edges.getEpsilonEdge( state ) != -1 || edges.getVariableEdge( state ) != -1 ||
+						edges.getSetEdgeEnd( state ) != edges.getStaticEdgeEnd( state ) || edges.isCounted( state ) ) {
+					return ret.toString();
+				}
+				for ( int edge = edges.getEdgeStart( state ); edge < edges.getStaticEdgeEnd( state ); ++edge ) {
+					int destination = edges.getDestination( edge );
+					if ( codePoint != -1 && codePoint != edges.getCodePoint( destination ) ) {
+						return ret.toString();
+					}
+					codePoint = edges.getCodePoint( destination );
+					next.set( destination );
+				}
+			}
+			if ( codePoint == -1 ) {
+				return ret.toString();
+			}
+			ret.appendCodePoint( codePoint );
+			current = next;
+		}
+		return ret.toString();
+	}
+
+	/**
+	 * walks backward from SNK as long as all states read before reaching SNK after the same number of
+	 * code points are static states for the same code point
+	 */
+	private static String literalSuffix(FrozenEdgeGraph edges) {
+		int stateCount = edges.getStateCount();
+		List<List<Integer>> predecessors = new ArrayList<>( stateCount );
+		for ( int i = 0; i < stateCount; ++i ) {
+			predecessors.add( new ArrayList<>() );
+		}
+		BitSet current = new BitSet( stateCount );
+		for ( int state = 0; state < stateCount; ++state ) {
+			for ( int edge = edges.getEdgeStart( state ); edge < edges.getEdgeEnd( state ); ++edge ) {
+				predecessors.get( edges.getDestination( edge ) ).add( state );
+			}
+			if ( edges.getEpsilonEdge( state ) != -1 ) {
+				current.set( state );
+			}
+		}
+
+		List<Integer> ret = new ArrayList<>();
+		while ( ret.size() < stateCount ) {
+			//bound states don't read anything, so their predecessors are read at the same position
+			BitSet visited = new BitSet( stateCount );
+			boolean changed = true;
+			while ( changed ) {
+				changed = false;
+				for ( int state = current.nextSetBit( 0 ); state != -1; state = current.nextSetBit( state + 1 ) ) {
+					if ( edges.isBound( state ) && !visited.get( state ) ) {
+						visited.set( state );
+						for ( int predecessor : predecessors.get( state ) ) {
+							current.set( predecessor );
+						}
+						changed = true;
+					}
+				}
+			}
+			int codePoint = -1;
+			//counted states might have read their code point more than once, so nothing is known before them
+			boolean last = false;
+			BitSet next = new BitSet( stateCount );
+			for ( int state = current.nextSetBit( 0 ); state != -1; state = current.nextSetBit( state + 1 ) ) {
+				if ( edges.isBound( state ) ) {
+					continue;
+				}
+				last |= edges.isCounted( state );
+				if ( state == FrozenEdgeGraph.SRC || edges.getKind( state ) != FrozenEdgeGraph.STATIC ||
+						(codePoint != -1 && codePoint != edges.getCodePoint( state )) ) {
+					codePoint = -1;
+					break;
+				}
+				codePoint = edges.getCodePoint( state );
+				for ( int predecessor : predecessors.get( state ) ) {
+					next.set( predecessor );
+				}
+			}
+			if ( codePoint == -1 ) {
+				break;
+			}
+			ret.add( codePoint );
+			if ( last ) {
+				break;
+			}
+			current = next;
+		}
+
+		StringBuilder builder = new StringBuilder();
+		for ( int i = ret.size() - 1; i >= 0; --i ) {
+			builder.appendCodePoint( ret.get( i ) );
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * @return the minimum length of a match in code points
+	 */
+	public int getMinLength() {
+		return this.minLength;
+	}
+
+	/**
+	 * @return the maximum length of a match in code points or {@link #UNBOUNDED}
+	 * (e.g. if the pattern contains a {@code +}, {@code *} or backreference)
+	 */
+	public int getMaxLength() {
+		return this.maxLength;
+	}
+
+	public boolean hasBackReferences() {
+		return this.backReferences;
+	}
+
+	/**
+	 * @return true if the pattern starts with {@code ^}
+	 */
+	public boolean isAnchoredAtLineStart() {
+		return this.anchoredAtLineStart;
+	}
+
+	/**
+	 * @return true if the pattern starts with {@code \G}
+	 */
+	public boolean isAnchoredAtLastMatch() {
+		return this.anchoredAtLastMatch;
+	}
+
+	/**
+	 * @return true if the pattern ends with {@code \z}
+	 */
+	public boolean isAnchoredAtEndOfInput() {
+		return this.anchoredAtEndOfInput;
+	}
+
+	/**
+	 * @return the literal every match starts with, the empty String if there is none.
+	 * For case-insensitive patterns this is in lower case and matches start with it ignoring case
+	 */
+	public String getLiteralPrefix() {
+		return this.literalPrefix;
+	}
+
+	/**
+	 * @return the literal every match ends with, the empty String if there is none.
+	 * For case-insensitive patterns this is in lower case and matches end with it ignoring case
+	 */
+	public String getLiteralSuffix() {
+		return this.literalSuffix;
+	}
+
+	/**
+	 * @return the code points a match can start with or null if a match can start with any
+	 * code point (or be empty)
+	 */
+	public FirstCodePoints getFirstCodePoints() {
+		return this.firstCodePoints;
+	}
+
+	@Override
+	public String toString() {
+		return "PatternInfo{" +
+				"minLength=" + minLength +
+				", maxLength=" + maxLength +
+				", backReferences=" + backReferences +
+				", anchoredAtLineStart=" + anchoredAtLineStart +
+				", anchoredAtLastMatch=" + anchoredAtLastMatch +
+				", anchoredAtEndOfInput=" + anchoredAtEndOfInput +
+				", literalPrefix='" + literalPrefix + '\'' +
+				", literalSuffix='" + literalSuffix + '\'' +
+				'}';
+	}
+
+}
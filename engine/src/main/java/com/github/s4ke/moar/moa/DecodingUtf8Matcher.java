@@ -0,0 +1,145 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa;
+
+import java.nio.ByteBuffer;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaUtf8Matcher;
+import com.github.s4ke.moar.util.CharSeq;
+import com.github.s4ke.moar.util.IntCharSeq;
+
+/**
+ * {@link MoaUtf8Matcher} for patterns that need the interpreter (bound states, backreferences
+ * or capturing groups). The input is decoded and matched by a regular {@link MoaMatcher},
+ * the positions it reports are translated back into byte offsets.
+ *
+ * @author Martin Braun
+ */
+final class DecodingUtf8Matcher implements MoaUtf8Matcher {
+
+	private final MoaMatcher matcher;
+	//the buffers only grow, so reusing this matcher for inputs that are not longer doesn't allocate
+	private int[] codePoints = new int[0];
+	private int[] byteOffsets = new int[1];
+	private final IntCharSeq decoded = new IntCharSeq( this.codePoints );
+
+	DecodingUtf8Matcher(Moa moa, byte[] utf8, int offset, int length) {
+		this.matcher = moa.matcher( this.decode( utf8, offset, length ) );
+	}
+
+	private CharSeq decode(byte[] utf8, int offset, int length) {
+		Utf8.checkRange( utf8, offset, length );
+		//there are at most as many code points as bytes
+		if ( this.codePoints.length < length ) {
+			this.codePoints = new int[length];
+			this.byteOffsets = new int[length + 1];
+		}
+		int count = Utf8.decode( utf8, offset, length, this.codePoints, this.byteOffsets );
+		return this.decoded.reuse( this.codePoints, count );
+	}
+
+	@Override
+	public MoaUtf8Matcher reuse(byte[] utf8, int offset, int length) {
+		this.matcher.reuse( this.decode( utf8, offset, length ) );
+		return this;
+	}
+
+	@Override
+	public MoaUtf8Matcher reuse(ByteBuffer utf8) {
+		if ( utf8.hasArray() ) {
+			return this.reuse( utf8.array(), utf8.arrayOffset() + utf8.position(), utf8.remaining() );
+		}
+		byte[] bytes = Utf8.remaining( utf8 );
+		return this.reuse( bytes, 0, bytes.length );
+	}
+
+	@Override
+	public MoaMatcher reuse(CharSequence str) {
+		byte[] bytes = Utf8.encode( str );
+		return this.reuse( bytes, 0, bytes.length );
+	}
+
+	@Override
+	public MoaMatcher reuse(CharSeq seq) {
+		byte[] bytes = Utf8.encode( seq );
+		return this.reuse( bytes, 0, bytes.length );
+	}
+
+	@Override
+	public String replaceFirst(String replacement) {
+		return this.matcher.replaceFirst( replacement );
+	}
+
+	@Override
+	public String replaceAll(String replacement) {
+		return this.matcher.replaceAll( replacement );
+	}
+
+	@Override
+	public int getStart() {
+		return this.byteOffsets[this.matcher.getStart()];
+	}
+
+	@Override
+	public int getEnd() {
+		return this.byteOffsets[this.matcher.getEnd()];
+	}
+
+	@Override
+	public boolean nextMatch() {
+		return this.matcher.nextMatch();
+	}
+
+	@Override
+	public boolean matches() {
+		return this.matcher.matches();
+	}
+
+	@Override
+	public boolean contains() {
+		return this.matcher.contains();
+	}
+
+	@Override
+	public int count() {
+		return this.matcher.count();
+	}
+
+	@Override
+	public boolean hitEnd() {
+		return this.matcher.hitEnd();
+	}
+
+	@Override
+	public String getVariableContent(int occurence) {
+		return this.matcher.getVariableContent( occurence );
+	}
+
+	@Override
+	public String getVariableContent(String name) {
+		return this.matcher.getVariableContent( name );
+	}
+
+}
@@ -0,0 +1,609 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa;
+
+import java.util.Arrays;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.moa.edgegraph.BitParallelSearch;
+import com.github.s4ke.moar.moa.edgegraph.CodePointClasses;
+import com.github.s4ke.moar.moa.edgegraph.Dfa;
+import com.github.s4ke.moar.moa.edgegraph.FirstCodePoints;
+import com.github.s4ke.moar.moa.edgegraph.FrozenEdgeGraph;
+import com.github.s4ke.moar.moa.edgegraph.RequiredLiteral;
+import com.github.s4ke.moar.util.CharSeq;
+import com.github.s4ke.moar.util.IntCharSeq;
+
+/**
+ * {@link MoaMatcher} for patterns whose {@link FrozenEdgeGraph} has a {@link Dfa}, i.e. patterns
+ * without bound states, backreferences and capturing groups. Every step is a single table lookup,
+ * there are no variables to keep track of. The control flow mirrors the one of {@link MoaMatcherImpl}
+ * (which is used for all other patterns) so that both find the same matches on the same input.
+ *
+ * @author Martin Braun
+ */
+final class DfaMatcher implements MoaMatcher {
+
+	private static final int NO_MORE_OCCURENCES = Integer.MAX_VALUE;
+
+	private static final int ACCEPTED = -1;
+	private static final int REJECTED = -2;
+
+	private final Dfa dfa;
+	private final BitParallelSearch bitParallelSearch;
+	private final CodePointClasses classes;
+	private final FrozenEdgeGraph edges;
+	private final RequiredLiteral requiredLiteral;
+	private final FirstCodePoints firstCodePoints;
+	private CharSeq str;
+
+	private int pos = 0;
+	private int lastMatch = -1;
+	private int lastStart = -1;
+	private int state = FrozenEdgeGraph.SRC;
+	//the next known occurence of the required literal, only valid if it is >= the current position
+	private int requiredLiteralPos = -1;
+	private boolean hitEnd = false;
+	private boolean hitEndPending = false;
+
+	//see findLeftmostMatch
+	private int[] threadStates;
+	private int[] threadStarts;
+	private int[] nextThreadStates;
+	private int[] nextThreadStarts;
+	private int[] claimed;
+	private int claimStamp = 0;
+	private int matchEnd = -1;
+
+	DfaMatcher(Dfa dfa, CharSeq str) {
+		this.dfa = dfa;
+		this.bitParallelSearch = dfa.getBitParallelSearch();
+		this.classes = dfa.getCodePointClasses();
+		this.edges = dfa.getEdges();
+		this.requiredLiteral = this.edges.getRequiredLiteral();
+		this.firstCodePoints = this.edges.getFirstCodePoints();
+		this.str = str;
+		if ( this.firstCodePoints != null ) {
+			//at most one run per state plus the one that is started at the current position
+			int maxThreads = this.dfa.getStateCount() + 1;
+			this.threadStates = new int[maxThreads];
+			this.threadStarts = new int[maxThreads];
+			this.nextThreadStates = new int[maxThreads];
+			this.nextThreadStarts = new int[maxThreads];
+			this.claimed = new int[this.dfa.getStateCount()];
+		}
+	}
+
+	public void reset() {
+		this.state = FrozenEdgeGraph.SRC;
+		this.pos = 0;
+		this.lastMatch = -1;
+		this.requiredLiteralPos = -1;
+		this.hitEnd = false;
+		this.hitEndPending = false;
+	}
+
+	@Override
+	public MoaMatcher reuse(CharSequence str) {
+		this.reset();
+		this.str = new IntCharSeq( str );
+		return this;
+	}
+
+	@Override
+	public MoaMatcher reuse(CharSeq seq) {
+		this.reset();
+		this.str = seq;
+		return this;
+	}
+
+	@Override
+	public String replaceFirst(String replacement) {
+		this.reset();
+		if ( this.nextMatch() ) {
+			int matchLength = this.pos - this.lastStart;
+			int retLength = this.str.codePointLength() - matchLength + replacement.length();
+			StringBuilder ret = new StringBuilder( retLength );
+			for ( int i = 0; i < this.lastStart; ++i ) {
+				ret.appendCodePoint( this.str.codePoint( i ) );
+			}
+			ret.append( replacement );
+			for ( int i = this.pos; i < this.str.codePointLength(); ++i ) {
+				ret.appendCodePoint( this.str.codePoint( i ) );
+			}
+			return ret.toString();
+		}
+		else {
+			return this.str.toString();
+		}
+	}
+
+	@Override
+	public String replaceAll(String replacement) {
+		this.reset();
+
+		StringBuilder ret = new StringBuilder( this.str.codePointLength() );
+		int prefixStart = 0;
+		while ( this.nextMatch() ) {
+			for ( int i = prefixStart; i < this.lastStart; ++i ) {
+				ret.appendCodePoint( this.str.codePoint( i ) );
+			}
+			ret.append( replacement );
+			prefixStart = this.lastMatch;
+		}
+		for ( int i = prefixStart; i < this.str.codePointLength(); ++i ) {
+			ret.appendCodePoint( this.str.codePoint( i ) );
+		}
+		return ret.toString();
+	}
+
+	@Override
+	public int getStart() {
+		if ( !this.isFinished() ) {
+			throw new IllegalStateException( "did not match on the last call" );
+		}
+		return this.lastStart;
+	}
+
+	@Override
+	public int getEnd() {
+		if ( !this.isFinished() ) {
+			throw new IllegalStateException( "did not match on the last call" );
+		}
+		return this.lastMatch;
+	}
+
+	@Override
+	public boolean nextMatch() {
+		this.hitEnd = false;
+		this.hitEndPending = false;
+		if ( this.nextMatch( true ) ) {
+			return true;
+		}
+		//more input could always contain a match
+		this.hitEnd = this.dfa.canReadMore( FrozenEdgeGraph.SRC );
+		return false;
+	}
+
+	@Override
+	public boolean contains() {
+		this.reset();
+		boolean found = this.threadStates != null ?
+				this.findLeftmostMatch( 0, this.str.codePointLength(), true ) != -1 :
+				this.nextMatch( true );
+		this.reset();
+		return found;
+	}
+
+	@Override
+	public int count() {
+		this.reset();
+		int strLen = this.str.codePointLength();
+		int count = 0;
+		while ( this.nextMatch( true ) ) {
+			++count;
+			if ( this.lastStart == this.lastMatch ) {
+				//an empty match would be found at the same position again
+				if ( this.pos >= strLen ) {
+					break;
+				}
+				++this.pos;
+			}
+		}
+		this.reset();
+		return count;
+	}
+
+	@Override
+	public boolean hitEnd() {
+		if ( this.hitEndPending ) {
+			this.reset();
+			this.matchesWholeInput();
+		}
+		return this.hitEnd;
+	}
+
+	private boolean nextMatch(boolean advanceOnReject) {
+		this.state = FrozenEdgeGraph.SRC;
+		int curStart = this.pos;
+		int strLen = this.str.codePointLength();
+		//whether the last step was rejected
+		boolean rejected = false;
+
+		if ( this.threadStates != null && advanceOnReject ) {
+			int matchStart = this.findLeftmostMatch( this.pos, strLen, false );
+			if ( matchStart == -1 ) {
+				this.pos = strLen;
+				return false;
+			}
+			this.state = FrozenEdgeGraph.SNK;
+			this.lastStart = matchStart;
+			this.pos = this.matchEnd;
+			this.lastMatch = this.matchEnd;
+			return true;
+		}
+
+		while ( !this.isFinished() && this.pos < strLen ) {
+			curStart = this.pos;
+			{
+				int candidate = this.nextStartByContents( curStart );
+				if ( candidate == -1 ) {
+					this.pos = strLen;
+					break;
+				}
+				if ( candidate > curStart ) {
+					if ( !advanceOnReject ) {
+						return false;
+					}
+					curStart = candidate;
+					this.pos = curStart;
+				}
+			}
+			while ( !this.isFinished() && this.pos < strLen ) {
+				if ( !this.dfa.reads( this.state ) ) {
+					//only the epsilon edge can be taken
+					rejected = !this.dfa.accepts( this.state );
+					if ( rejected ) {
+						if ( !advanceOnReject ) {
+							return false;
+						}
+						this.pos = curStart + 1;
+						break;
+					}
+					this.state = FrozenEdgeGraph.SNK;
+					continue;
+				}
+				int next = this.dfa.next( this.state, this.str.codePoint( this.pos ) );
+				rejected = next == -1;
+				if ( rejected ) {
+					if ( !advanceOnReject ) {
+						return false;
+					}
+					//we were rejected, but let's check if we have to
+					//read \epsilon on the end instead
+					if ( this.dfa.accepts( this.state ) ) {
+						this.state = FrozenEdgeGraph.SNK;
+						this.lastStart = curStart;
+						this.lastMatch = this.pos;
+						return true;
+					}
+					this.pos = curStart + 1;
+					break;
+				}
+				this.state = next;
+				++this.pos;
+				if ( !advanceOnReject && this.dfa.isDead( this.state ) ) {
+					//no input that follows can lead to a match anymore
+					return false;
+				}
+			}
+			if ( !rejected ) {
+				//more input could have let the run go on
+				this.hitEnd |= !this.isFinished() && this.pos >= strLen && this.dfa.canReadMore( this.state );
+				this.acceptEmpty();
+			}
+
+			if ( !this.isFinished() ) {
+				this.state = FrozenEdgeGraph.SRC;
+				if ( advanceOnReject ) {
+					//the run ended at the end of the input without a match, which is the
+					//same as being rejected there, so the next run starts right after this one
+					this.pos = curStart + 1;
+				}
+			}
+			else {
+				this.lastStart = curStart;
+			}
+		}
+
+		//allow to get into the final state for the case we can have an epsilon string
+		if ( !this.isFinished() && this.lastMatch != this.pos ) {
+			this.hitEnd |= this.pos >= strLen && this.dfa.canReadMore( this.state );
+			if ( !rejected ) {
+				this.acceptEmpty();
+			}
+
+			if ( !this.isFinished() ) {
+				this.state = FrozenEdgeGraph.SRC;
+			}
+			else {
+				this.lastStart = curStart;
+			}
+		}
+
+		if ( this.isFinished() ) {
+			this.lastMatch = this.pos;
+		}
+
+		return this.isFinished();
+	}
+
+	private void acceptEmpty() {
+		if ( this.dfa.accepts( this.state ) ) {
+			this.state = FrozenEdgeGraph.SNK;
+		}
+	}
+
+	/**
+	 * @return the first position at or after the given one where a match could start
+	 * according to the required literal and the first code points or -1 if there is none
+	 */
+	private int nextStartByContents(int from) {
+		int start = from;
+		if ( this.requiredLiteral != null ) {
+			//no match can start after the last occurence of the required literal
+			if ( this.requiredLiteralPos < start ) {
+				int occurence = this.requiredLiteral.indexOf( this.str, start );
+				this.requiredLiteralPos = occurence != -1 ? occurence : NO_MORE_OCCURENCES;
+			}
+			if ( this.requiredLiteralPos == NO_MORE_OCCURENCES ) {
+				return -1;
+			}
+			if ( this.requiredLiteral.isPrefix() ) {
+				start = this.requiredLiteralPos;
+			}
+		}
+		if ( this.firstCodePoints != null ) {
+			//skip all positions no match can start at
+			start = this.firstCodePoints.indexOf( this.str, start );
+		}
+		return start;
+	}
+
+	/**
+	 * Runs the table from all possible starts at once, just like
+	 * {@link MoaMatcherImpl} does for patterns without backreferences. As there are
+	 * no variables, the end of the match is known as well, see {@link #matchEnd}.
+	 *
+	 * @param any whether to stop as soon as any run is sure to end with a match, the
+	 * returned position then only tells that there is a match (and {@link #matchEnd} is not set)
+	 *
+	 * @return the start of the leftmost match at or after the given position or -1 if there is none
+	 */
+	private int findLeftmostMatch(int from, int strLen, boolean any) {
+		int pos = from;
+		if ( this.bitParallelSearch != null ) {
+			pos = this.skipWithoutMatch( pos, strLen, any );
+			if ( pos == -1 || any ) {
+				return pos;
+			}
+		}
+		int[] states = this.threadStates;
+		int[] starts = this.threadStarts;
+		int[] nextStates = this.nextThreadStates;
+		int[] nextStarts = this.nextThreadStarts;
+		int threadCount = 0;
+		int matchStart = -1;
+		while ( true ) {
+			if ( threadCount == 0 ) {
+				if ( matchStart != -1 ) {
+					return matchStart;
+				}
+				if ( pos >= strLen ) {
+					return -1;
+				}
+				pos = this.nextStartByContents( pos );
+				if ( pos == -1 ) {
+					return -1;
+				}
+			}
+			//runs starting later than a found match can't produce the leftmost match anymore
+			if ( matchStart == -1 && pos < strLen && this.firstCodePoints.contains( this.str.codePoint( pos ) ) ) {
+				states[threadCount] = FrozenEdgeGraph.SRC;
+				starts[threadCount] = pos;
+				++threadCount;
+			}
+
+			if ( ++this.claimStamp == 0 ) {
+				Arrays.fill( this.claimed, 0 );
+				this.claimStamp = 1;
+			}
+			int nextThreadCount = 0;
+			for ( int i = 0; i < threadCount; ++i ) {
+				int result = this.advance( states[i], pos, strLen );
+				if ( any && (result == ACCEPTED || (result != REJECTED && this.dfa.surelyAccepts( result ))) ) {
+					return starts[i];
+				}
+				if ( result == ACCEPTED ) {
+					//all the runs after this one started later
+					matchStart = starts[i];
+					this.matchEnd = pos;
+					break;
+				}
+				if ( result != REJECTED && this.claimed[result] != this.claimStamp ) {
+					this.claimed[result] = this.claimStamp;
+					nextStates[nextThreadCount] = result;
+					nextStarts[nextThreadCount] = starts[i];
+					++nextThreadCount;
+				}
+			}
+
+			int[] tmp = states;
+			states = nextStates;
+			nextStates = tmp;
+			tmp = starts;
+			starts = nextStarts;
+			nextStarts = tmp;
+			threadCount = nextThreadCount;
+			++pos;
+		}
+	}
+
+	/**
+	 * Runs the same search as {@link #findLeftmostMatch(int, int)} with the {@link BitParallelSearch}, which only
+	 * knows the states of the runs but not where they started. As soon as one of the runs could end with a match,
+	 * the search has to be repeated by findLeftmostMatch from the leftmost start of the runs that are still active.
+	 * All runs that started before that have ended without a match and the ones after it don't depend on them,
+	 * so the result doesn't change.
+	 *
+	 * @param any whether to stop as soon as any run is sure to end with a match, the returned
+	 * position then only tells that there is a match
+	 *
+	 * @return the position findLeftmostMatch has to continue at or -1 if there is no match
+	 */
+	private int skipWithoutMatch(int from, int strLen, boolean any) {
+		BitParallelSearch search = this.bitParallelSearch;
+		long srcBit = 1L << FrozenEdgeGraph.SRC;
+		long states = 0;
+		int restart = from;
+		int pos = from;
+		while ( true ) {
+			if ( states == 0 ) {
+				if ( pos >= strLen ) {
+					return -1;
+				}
+				pos = this.nextStartByContents( pos );
+				if ( pos == -1 ) {
+					return -1;
+				}
+				restart = pos;
+			}
+			if ( any && (states & search.surelyAccepting()) != 0 ) {
+				return pos;
+			}
+			if ( pos >= strLen ) {
+				if ( (states & search.accepting()) == 0 ) {
+					return -1;
+				}
+				return any ? pos : this.leftmostStart( states, pos, restart );
+			}
+			int classId = this.classes.classOf( this.str.codePoint( pos ) );
+			//SRC can't read code points that aren't first code points, so it can always be added
+			long current = states | srcBit;
+			if ( (current & search.acceptBefore( classId )) != 0 ) {
+				return any ? pos : this.leftmostStart( states, pos, restart );
+			}
+			states = search.follow( current ) & search.enter( classId );
+			++pos;
+		}
+	}
+
+	/**
+	 * Goes back from the given states with the reversed graph instead of
+	 * repeating the whole search from the last position no run was active at.
+	 *
+	 * @return the leftmost position at or after restart a run that is in one of the given states at pos started at
+	 */
+	private int leftmostStart(long states, int pos, int restart) {
+		BitParallelSearch search = this.bitParallelSearch;
+		long srcBit = 1L << FrozenEdgeGraph.SRC;
+		//a run starting at pos itself has not read anything yet
+		int start = pos;
+		long reachable = states;
+		for ( int cur = pos - 1; cur >= restart && reachable != 0; --cur ) {
+			reachable = search.precede( reachable & search.enter( this.classes.classOf( this.str.codePoint( cur ) ) ) );
+			if ( (reachable & srcBit) != 0 ) {
+				start = cur;
+			}
+		}
+		return start;
+	}
+
+	/**
+	 * @return the state after reading the code point at the given position, {@link #ACCEPTED} or {@link #REJECTED}
+	 */
+	private int advance(int state, int pos, int strLen) {
+		if ( this.dfa.reads( state ) ) {
+			if ( pos < strLen ) {
+				int next = this.dfa.next( state, this.str.codePoint( pos ) );
+				if ( next != -1 ) {
+					//runs that can't reach SNK anymore can be dropped right away
+					return this.dfa.isDead( next ) ? REJECTED : next;
+				}
+			}
+			else {
+				this.hitEnd |= this.dfa.canReadMore( state );
+			}
+		}
+		return this.dfa.accepts( state ) ? ACCEPTED : REJECTED;
+	}
+
+	@Override
+	public boolean matches() {
+		this.reset();
+		//most inputs of the wrong length can be rejected right away
+		int length = this.str.codePointLength();
+		if ( length < this.edges.getMinMatchLength() ) {
+			//whether more input could lead to a match is only found out if hitEnd() is called
+			this.hitEndPending = true;
+			return false;
+		}
+		int maxMatchLength = this.edges.getMaxMatchLength();
+		if ( maxMatchLength != FrozenEdgeGraph.UNBOUNDED && length > maxMatchLength ) {
+			return false;
+		}
+		return this.matchesWholeInput();
+	}
+
+	private boolean matchesWholeInput() {
+		if ( this.firstCodePoints != null ) {
+			if ( this.str.codePointLength() == 0 ) {
+				this.hitEnd = this.dfa.canReadMore( FrozenEdgeGraph.SRC );
+				return false;
+			}
+			if ( !this.firstCodePoints.contains( this.str.codePoint( 0 ) ) ) {
+				return false;
+			}
+		}
+		if ( this.requiredLiteral != null ) {
+			boolean possible = this.requiredLiteral.isPrefix() ?
+					this.requiredLiteral.occursAt( this.str, 0 ) :
+					this.requiredLiteral.indexOf( this.str, 0 ) != -1;
+			if ( !possible ) {
+				//more input might still contain the literal
+				this.hitEnd = !this.requiredLiteral.isPrefix() || this.isPrefixOfRequiredLiteral();
+				return false;
+			}
+		}
+		return this.nextMatch( false ) && this.lastStart == 0 && this.pos >= this.str.codePointLength();
+	}
+
+	private boolean isPrefixOfRequiredLiteral() {
+		int length = this.str.codePointLength();
+		if ( length >= this.requiredLiteral.length() ) {
+			return false;
+		}
+		for ( int i = 0; i < length; ++i ) {
+			if ( !this.requiredLiteral.matches( i, this.str.codePoint( i ) ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isFinished() {
+		return this.state == FrozenEdgeGraph.SNK;
+	}
+
+	@Override
+	public String getVariableContent(int occurence) {
+		throw new IllegalArgumentException( "variable with occurence " + occurence + " does not exist" );
+	}
+
+	@Override
+	public String getVariableContent(String name) {
+		throw new IllegalArgumentException( "variable with name " + name + " does not exist" );
+	}
+
+}
@@ -30,10 +30,14 @@ import java.util.Map;
 import java.util.Set;
 
 import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaUtf8Matcher;
 import com.github.s4ke.moar.NonDeterministicException;
 import com.github.s4ke.moar.moa.edgegraph.ActionType;
+import com.github.s4ke.moar.moa.edgegraph.Dfa;
 import com.github.s4ke.moar.moa.edgegraph.EdgeGraph;
+import com.github.s4ke.moar.moa.edgegraph.FrozenEdgeGraph;
 import com.github.s4ke.moar.moa.edgegraph.MemoryAction;
+import com.github.s4ke.moar.moa.edgegraph.Utf8Dfa;
 import com.github.s4ke.moar.moa.states.State;
 import com.github.s4ke.moar.moa.states.Variable;
 import com.github.s4ke.moar.util.CharSeq;
@@ -53,15 +57,19 @@ public final class Moa {
 
 	private Map<String, Variable> vars = new HashMap<>();
 	private EdgeGraph edges = new EdgeGraph();
+	private FrozenEdgeGraph frozenEdges;
+	private boolean caseInsensitive = false;
 
 	private boolean frozen = false;
 
 	public void freeze() {
 		this.frozen = true;
+		this.edges = this.edges.minimize();
 		this.edges.freeze();
 		if ( !this.edges.isDeterministic() ) {
 			throw new NonDeterministicException( "this moa is not deterministic" );
 		}
+		this.frozenEdges = new FrozenEdgeGraph( this.edges, this.vars, this.caseInsensitive );
 	}
 
 	public void checkNotFrozen() {
@@ -82,6 +90,11 @@ public final class Moa {
 		return this.edges;
 	}
 
+	public FrozenEdgeGraph getFrozenEdges() {
+		this.checkFrozen();
+		return this.frozenEdges;
+	}
+
 	public void setEdges(EdgeGraph edges) {
 		this.checkNotFrozen();
 		this.edges = edges;
@@ -115,19 +128,43 @@ public final class Moa {
 		return Collections.unmodifiableMap( this.vars );
 	}
 
+	/**
+	 * @param caseInsensitive whether the input should be folded with {@link com.github.s4ke.moar.util.CaseFolding}
+	 * while matching (this doesn't fold the states of this Moa)
+	 */
+	public void setCaseInsensitive(boolean caseInsensitive) {
+		this.checkNotFrozen();
+		this.caseInsensitive = caseInsensitive;
+	}
+
+	public boolean isCaseInsensitive() {
+		return this.caseInsensitive;
+	}
+
 	public MoaMatcher matcher(CharSeq charSeq) {
 		this.checkFrozen();
-		Map<String, Variable> varCopy = new HashMap<>( this.vars.size() );
-		for ( Map.Entry<String, Variable> entry : this.vars.entrySet() ) {
-			varCopy.put( entry.getKey(), new Variable( entry.getValue() ) );
+		if ( this.frozenEdges.getDfa() != null ) {
+			//no bounds, backreferences or variables, so we can use the table
+			return new DfaMatcher( this.frozenEdges.getDfa(), charSeq );
 		}
-		return new MoaMatcherImpl( this.edges, varCopy, charSeq );
+		return new MoaMatcherImpl( this.frozenEdges, charSeq );
 	}
 
 	public MoaMatcher matcher(CharSequence str) {
 		return this.matcher( new IntCharSeq( str ) );
 	}
 
+	public MoaUtf8Matcher matcher(byte[] utf8, int offset, int length) {
+		this.checkFrozen();
+		Dfa dfa = this.frozenEdges.getDfa();
+		Utf8Dfa utf8Dfa = dfa != null ? dfa.getUtf8Dfa() : null;
+		if ( utf8Dfa != null ) {
+			//the table can be run on the bytes directly
+			return new Utf8DfaMatcher( utf8Dfa, utf8, offset, length );
+		}
+		return new DecodingUtf8Matcher( this, utf8, offset, length );
+	}
+
 	public boolean check(CharSequence str) {
 		return this.matcher( str ).matches();
 	}
@@ -150,6 +187,9 @@ public final class Moa {
 		if ( frozen != moa.frozen ) {
 			return false;
 		}
+		if ( caseInsensitive != moa.caseInsensitive ) {
+			return false;
+		}
 		if ( vars != null ? !vars.equals( moa.vars ) : moa.vars != null ) {
 			return false;
 		}
@@ -162,6 +202,7 @@ public final class Moa {
 		int result = vars != null ? vars.hashCode() : 0;
 		result = 31 * result + (edges != null ? edges.hashCode() : 0);
 		result = 31 * result + (frozen ? 1 : 0);
+		result = 31 * result + (caseInsensitive ? 1 : 0);
 		return result;
 	}
 }
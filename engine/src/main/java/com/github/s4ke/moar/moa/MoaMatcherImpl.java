@@ -23,15 +23,16 @@
  */
 package com.github.s4ke.moar.moa;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import com.github.s4ke.moar.MoaMatcher;
-import com.github.s4ke.moar.moa.edgegraph.CurStateHolder;
 import com.github.s4ke.moar.moa.edgegraph.EdgeGraph;
+import com.github.s4ke.moar.moa.edgegraph.FirstCodePoints;
+import com.github.s4ke.moar.moa.edgegraph.FrozenEdgeGraph;
+import com.github.s4ke.moar.moa.edgegraph.LiteralRuns;
+import com.github.s4ke.moar.moa.edgegraph.RequiredLiteral;
 import com.github.s4ke.moar.moa.states.MatchInfo;
-import com.github.s4ke.moar.moa.states.State;
-import com.github.s4ke.moar.moa.states.Variable;
+import com.github.s4ke.moar.moa.states.VariableSlots;
 import com.github.s4ke.moar.strings.EfficientString;
 import com.github.s4ke.moar.util.CharSeq;
 import com.github.s4ke.moar.util.IntCharSeq;
@@ -39,35 +40,73 @@ import com.github.s4ke.moar.util.IntCharSeq;
 /**
  * @author Martin Braun
  */
-final class MoaMatcherImpl implements CurStateHolder, MoaMatcher {
+final class MoaMatcherImpl implements MoaMatcher {
 
-	private final EdgeGraph edges;
-	private final Map<String, Variable> vars;
-	private final Map<Integer, Variable> varsByOccurence;
+	private static final int NO_MORE_OCCURENCES = Integer.MAX_VALUE;
+
+	private static final int ACCEPTED = -1;
+	private static final int REJECTED = -2;
+
+	private final FrozenEdgeGraph edges;
+	private final RequiredLiteral requiredLiteral;
+	private final FirstCodePoints firstCodePoints;
+	private final LiteralRuns literalRuns;
+	private final VariableSlots vars;
 	private CharSeq str;
 
-	private MatchInfo mi = new MatchInfo();
+	private final MatchInfo mi = new MatchInfo();
+	private final EfficientString token = new EfficientString();
 	private int lastStart = -1;
-	private State state = Moa.SRC;
-
-	MoaMatcherImpl(EdgeGraph edges, Map<String, Variable> vars, CharSeq str) {
+	private int state = FrozenEdgeGraph.SRC;
+	//how often a counted state has read its code point in a row, always 1 for all other states
+	private int count = 1;
+	//the next known occurence of the required literal, only valid if it is >= the current position
+	private int requiredLiteralPos = -1;
+	private boolean hitEnd = false;
+	private boolean hitEndPending = false;
+	//whether only the memory actions for variables read by backreferences are applied, see contains() and count()
+	private boolean referencedOnly = false;
+
+	//only used for patterns without backreferences, see findLeftmostMatchStart
+	private int[] threadStates;
+	private int[] threadStarts;
+	private int[] nextThreadStates;
+	private int[] nextThreadStarts;
+	private int[] claimed;
+	private int claimStamp = 0;
+
+	MoaMatcherImpl(FrozenEdgeGraph edges, CharSeq str) {
 		this.edges = edges;
-		this.vars = vars;
+		this.requiredLiteral = edges.getRequiredLiteral();
+		this.firstCodePoints = edges.getFirstCodePoints();
+		this.literalRuns = edges.getLiteralRuns();
+		this.vars = new VariableSlots( edges.getVariableCount() );
 		this.str = str;
-		this.varsByOccurence = new HashMap<>();
-		for ( Variable var : vars.values() ) {
-			this.varsByOccurence.put( var.getOccurenceInRegex(), var );
+		this.mi.setString( this.token );
+		int runStateCount = edges.getRunStateCount();
+		if ( !edges.hasBackReferences() && this.firstCodePoints != null && runStateCount != -1 ) {
+			//at most one run per (run) state plus the one that is started at the current position
+			int maxThreads = runStateCount + 1;
+			this.threadStates = new int[maxThreads];
+			this.threadStarts = new int[maxThreads];
+			this.nextThreadStates = new int[maxThreads];
+			this.nextThreadStarts = new int[maxThreads];
+			this.claimed = new int[runStateCount];
 		}
 	}
 
 	public void reset() {
 		this.resetStateAndVars();
-		this.mi = new MatchInfo();
+		this.mi.reset();
+		this.requiredLiteralPos = -1;
+		this.hitEnd = false;
+		this.hitEndPending = false;
 	}
 
 	private void resetStateAndVars() {
-		this.state = Moa.SRC;
-		this.vars.values().forEach( Variable::reset );
+		this.state = FrozenEdgeGraph.SRC;
+		this.count = 1;
+		this.vars.reset();
 	}
 
 	@Override
@@ -81,19 +120,11 @@ final class MoaMatcherImpl implements CurStateHolder, MoaMatcher {
 	public MoaMatcher reuse(CharSeq seq) {
 		this.reset();
 		this.str = seq;
+		//the same CharSeq may come back with a different content, so the line breaks are indexed again
+		this.mi.setWholeString( null );
 		return this;
 	}
 
-	@Override
-	public State getState() {
-		return this.state;
-	}
-
-	@Override
-	public void setState(State state) {
-		this.state = state;
-	}
-
 	//FIXME: allow adding capturing groups to the replacement
 
 	@Override
@@ -130,7 +161,7 @@ final class MoaMatcherImpl implements CurStateHolder, MoaMatcher {
 			ret.append( replacement );
 			prefixStart = this.mi.getLastMatch();
 		}
-		for ( int i = this.mi.getLastMatch(); i < this.str.codePointLength(); ++i ) {
+		for ( int i = prefixStart; i < this.str.codePointLength(); ++i ) {
 			ret.appendCodePoint( this.str.codePoint( i ) );
 		}
 		return ret.toString();
@@ -154,7 +185,62 @@ final class MoaMatcherImpl implements CurStateHolder, MoaMatcher {
 
 	@Override
 	public boolean nextMatch() {
-		return this.nextMatch( true );
+		this.hitEnd = false;
+		this.hitEndPending = false;
+		if ( this.nextMatch( true ) ) {
+			return true;
+		}
+		//more input could always contain a match
+		this.hitEnd = this.edges.canReadMore( FrozenEdgeGraph.SRC );
+		return false;
+	}
+
+	@Override
+	public boolean contains() {
+		this.reset();
+		boolean found;
+		if ( this.threadStates != null ) {
+			//no variables are needed to find out whether any run reaches SNK
+			this.mi.setWholeString( this.str );
+			found = this.findLeftmostMatchStart( 0, this.str.codePointLength(), true ) != -1;
+		}
+		else {
+			this.referencedOnly = true;
+			found = this.nextMatch( true );
+			this.referencedOnly = false;
+		}
+		this.reset();
+		return found;
+	}
+
+	@Override
+	public int count() {
+		this.reset();
+		this.referencedOnly = true;
+		int strLen = this.str.codePointLength();
+		int count = 0;
+		while ( this.nextMatch( true ) ) {
+			++count;
+			if ( this.lastStart == this.mi.getLastMatch() ) {
+				//an empty match would be found at the same position again
+				if ( this.mi.getPos() >= strLen ) {
+					break;
+				}
+				this.mi.setPos( this.mi.getPos() + 1 );
+			}
+		}
+		this.referencedOnly = false;
+		this.reset();
+		return count;
+	}
+
+	@Override
+	public boolean hitEnd() {
+		if ( this.hitEndPending ) {
+			this.reset();
+			this.matchesWholeInput();
+		}
+		return this.hitEnd;
 	}
 
 	private boolean nextMatch(boolean advanceOnReject) {
@@ -162,34 +248,56 @@ final class MoaMatcherImpl implements CurStateHolder, MoaMatcher {
 		EdgeGraph.StepResult stepResult = null;
 		int curStart = this.mi.getPos();
 		this.mi.setWholeString( this.str );
-		EfficientString token = new EfficientString();
-		this.mi.setString( token );
+		EfficientString token = this.token;
 
 		int strLen = this.str.codePointLength();
 
+		if ( this.threadStates != null && advanceOnReject ) {
+			//find out where the match starts in linear time, the loop below
+			//then only has to run the automaton (with the variables) once
+			int matchStart = this.findLeftmostMatchStart( this.mi.getPos(), strLen, false );
+			this.resetStateAndVars();
+			if ( matchStart == -1 ) {
+				this.mi.setPos( strLen );
+				return false;
+			}
+			this.mi.setPos( matchStart );
+		}
+
 		while ( !this.isFinished() && this.mi.getPos() < strLen ) {
 			curStart = this.mi.getPos();
+			{
+				int candidate = this.nextPossibleStart( curStart );
+				if ( candidate == -1 ) {
+					this.mi.setPos( strLen );
+					break;
+				}
+				if ( candidate > curStart ) {
+					if ( !advanceOnReject ) {
+						return false;
+					}
+					curStart = candidate;
+					this.mi.setPos( curStart );
+				}
+			}
 			while ( !this.isFinished() && this.mi.getPos() < strLen ) {
-				int tokenLen = this.edges.maximalNextTokenLength( this, this.vars );
+				if ( this.literalRuns != null && this.takeLiteralRun( strLen ) ) {
+					stepResult = EdgeGraph.StepResult.CONSUMED;
+					continue;
+				}
+				int tokenLen = this.edges.maximalNextTokenLength( this.state, this.count, this.vars );
 				if ( this.mi.getPos() + tokenLen > strLen ) {
+					this.hitEnd |= this.edges.canReadMore( this.state, this.count );
 					if ( tokenLen > 0 ) {
 						//we were rejected, but let's check if we have to
 						//read \epsilon on the end instead
-						token.reset();
-						while ( !this.isFinished() && this.step( mi ) != EdgeGraph.StepResult.REJECTED ) {
-
-						}
-						if ( this.isFinished() ) {
+						if ( this.acceptEmpty() ) {
 							this.lastStart = curStart;
 							this.mi.setLastMatch( this.mi.getPos() );
 							return true;
 						}
 					}
-					if ( tokenLen > 1 ) {
-						//reference
-						this.mi.setPos( curStart );
-					}
-					this.mi.setPos( this.mi.getPos() + 1 );
+					this.mi.setPos( curStart + 1 );
 					break;
 				}
 				token.update( this.str, this.mi.getPos(), this.mi.getPos() + tokenLen );
@@ -202,11 +310,7 @@ final class MoaMatcherImpl implements CurStateHolder, MoaMatcher {
 						if ( tokenLen > 0 ) {
 							//we were rejected, but let's check if we have to
 							//read \epsilon on the end instead
-							token.reset();
-							while ( !this.isFinished() && this.step( mi ) != EdgeGraph.StepResult.REJECTED ) {
-
-							}
-							if ( this.isFinished() ) {
+							if ( this.acceptEmpty() ) {
 								this.lastStart = curStart;
 								this.mi.setLastMatch( this.mi.getPos() );
 								return true;
@@ -218,16 +322,25 @@ final class MoaMatcherImpl implements CurStateHolder, MoaMatcher {
 					if ( stepResult == EdgeGraph.StepResult.CONSUMED ) {
 						this.mi.setPos( this.mi.getPos() + tokenLen );
 					}
+					if ( !advanceOnReject && this.edges.isDead( this.state ) ) {
+						//no input that follows can lead to a match anymore
+						return false;
+					}
 				}
 			}
-			token.reset();
-			//noinspection StatementWithEmptyBody
-			while ( stepResult != EdgeGraph.StepResult.REJECTED && !this.isFinished() && this.step( mi ) != EdgeGraph.StepResult.REJECTED ) {
-
+			if ( stepResult != EdgeGraph.StepResult.REJECTED ) {
+				//more input could have let the run go on
+				this.hitEnd |= !this.isFinished() && this.mi.getPos() >= strLen && this.edges.canReadMore( this.state, this.count );
+				this.acceptEmpty();
 			}
 
 			if ( !this.isFinished() ) {
 				this.resetStateAndVars();
+				if ( advanceOnReject ) {
+					//the run ended at the end of the input without a match, which is the
+					//same as being rejected there, so the next run starts right after this one
+					this.mi.setPos( curStart + 1 );
+				}
 			}
 			else {
 				this.lastStart = curStart;
@@ -236,10 +349,9 @@ final class MoaMatcherImpl implements CurStateHolder, MoaMatcher {
 
 		//allow to get into the final state for the case we can have an epsilon string (
 		if ( !this.isFinished() && this.mi.getLastMatch() != this.mi.getPos() ) {
-			token.reset();
-			//noinspection StatementWithEmptyBody
-			while ( stepResult != EdgeGraph.StepResult.REJECTED && !this.isFinished() && this.step( mi ) != EdgeGraph.StepResult.REJECTED ) {
-
+			this.hitEnd |= this.mi.getPos() >= strLen && this.edges.canReadMore( this.state, this.count );
+			if ( stepResult != EdgeGraph.StepResult.REJECTED ) {
+				this.acceptEmpty();
 			}
 
 			if ( !this.isFinished() ) {
@@ -257,9 +369,290 @@ final class MoaMatcherImpl implements CurStateHolder, MoaMatcher {
 		return this.isFinished();
 	}
 
+	/**
+	 * Reads the whole {@link LiteralRuns literal run} starting at the current state at once
+	 * if it occurs in the input. If it doesn't, stepping through it one code point at a time
+	 * finds out where it fails.
+	 *
+	 * @return true if the run was taken
+	 */
+	private boolean takeLiteralRun(int strLen) {
+		int length = this.literalRuns.getLength( this.state );
+		int pos = this.mi.getPos();
+		if ( length < 2 || pos + length > strLen || !this.literalRuns.occursAt( this.state, this.str, pos ) ) {
+			return false;
+		}
+		//the edges of a run don't have memory actions, so the open variables just get the whole literal
+		this.token.update( this.str, pos, pos + length );
+		this.vars.consume( this.token );
+		this.state = this.literalRuns.getEnd( this.state );
+		this.count = 1;
+		this.mi.setPos( pos + length );
+		return true;
+	}
+
+	/**
+	 * @return the first position at or after the given one where a match could start
+	 * according to the anchoring, the required literal and the first code points or -1 if there is none
+	 */
+	private int nextPossibleStart(int from) {
+		int start = from;
+		if ( this.edges.isAnchoredAtEndOfInput() && this.edges.getMaxMatchLength() != FrozenEdgeGraph.UNBOUNDED ) {
+			//matches have to end at the end of the input, so they can't start too far in front of it
+			start = Math.max( start, this.str.codePointLength() - this.edges.getMaxMatchLength() );
+		}
+		while ( true ) {
+			int candidate = this.nextAnchoredStart( start );
+			if ( candidate == -1 ) {
+				return -1;
+			}
+			candidate = this.nextStartByContents( candidate );
+			//the contents might have moved us past the anchor, so check again
+			if ( candidate == -1 || candidate == start ) {
+				return candidate;
+			}
+			start = candidate;
+		}
+	}
+
+	/**
+	 * @return the first position at or after the given one the start anchor of the pattern
+	 * matches at or -1 if there is none
+	 */
+	private int nextAnchoredStart(int from) {
+		switch ( this.edges.getStartAnchor() ) {
+			case FrozenEdgeGraph.ANCHOR_LINE_START:
+				return this.mi.nextLineStart( from );
+			case FrozenEdgeGraph.ANCHOR_LAST_MATCH: {
+				int lastMatch = this.mi.getLastMatch();
+				if ( lastMatch == -1 ) {
+					//\G matches everywhere before the first match
+					return from;
+				}
+				return from <= lastMatch ? lastMatch : -1;
+			}
+			default:
+				return from;
+		}
+	}
+
+	/**
+	 * @return true if a match could start at the given position according to the anchoring
+	 */
+	private boolean isAnchoredStart(int pos, int strLen) {
+		if ( this.edges.isAnchoredAtEndOfInput() && this.edges.getMaxMatchLength() != FrozenEdgeGraph.UNBOUNDED &&
+				pos < strLen - this.edges.getMaxMatchLength() ) {
+			return false;
+		}
+		return this.edges.getStartAnchor() == FrozenEdgeGraph.ANCHOR_NONE || this.nextAnchoredStart( pos ) == pos;
+	}
+
+	/**
+	 * @return the first position at or after the given one where a match could start
+	 * according to the required literal and the first code points or -1 if there is none
+	 */
+	private int nextStartByContents(int from) {
+		int start = from;
+		if ( this.requiredLiteral != null ) {
+			//no match can start after the last occurence of the required literal
+			if ( this.requiredLiteralPos < start ) {
+				int occurence = this.requiredLiteral.indexOf( this.str, start );
+				this.requiredLiteralPos = occurence != -1 ? occurence : NO_MORE_OCCURENCES;
+			}
+			if ( this.requiredLiteralPos == NO_MORE_OCCURENCES ) {
+				return -1;
+			}
+			if ( this.requiredLiteral.isPrefix() ) {
+				start = this.requiredLiteralPos;
+			}
+		}
+		if ( this.firstCodePoints != null ) {
+			//skip all positions no match can start at
+			start = this.firstCodePoints.indexOf( this.str, start );
+		}
+		return start;
+	}
+
+	/**
+	 * Runs the automaton from all possible starts at once, so every position of the input
+	 * is only looked at once. If runs from different starts end up in the same state at the
+	 * same position, only the one that started first is kept as both behave the same from
+	 * there on. This is only possible for patterns without backreferences. The runs are kept
+	 * as {@link FrozenEdgeGraph#getRunState(int, int) run states}, so runs in a counted state
+	 * only behave the same if they have the same count as well.
+	 *
+	 * @param any whether to stop as soon as any run reaches SNK, the returned position then
+	 * only tells that there is a match
+	 *
+	 * @return the start of the leftmost match at or after the given position or -1 if there is none
+	 */
+	private int findLeftmostMatchStart(int from, int strLen, boolean any) {
+		int[] states = this.threadStates;
+		int[] starts = this.threadStarts;
+		int[] nextStates = this.nextThreadStates;
+		int[] nextStarts = this.nextThreadStarts;
+		int threadCount = 0;
+		int matchStart = -1;
+		int pos = from;
+		while ( true ) {
+			if ( threadCount == 0 ) {
+				if ( matchStart != -1 ) {
+					return matchStart;
+				}
+				if ( pos >= strLen ) {
+					return -1;
+				}
+				pos = this.nextPossibleStart( pos );
+				if ( pos == -1 ) {
+					return -1;
+				}
+			}
+			//runs starting later than a found match can't produce the leftmost match anymore
+			if ( matchStart == -1 && pos < strLen && this.firstCodePoints.contains( this.str.codePoint( pos ) ) &&
+					this.isAnchoredStart( pos, strLen ) ) {
+				states[threadCount] = FrozenEdgeGraph.SRC;
+				starts[threadCount] = pos;
+				++threadCount;
+			}
+
+			if ( ++this.claimStamp == 0 ) {
+				Arrays.fill( this.claimed, 0 );
+				this.claimStamp = 1;
+			}
+			int nextThreadCount = 0;
+			for ( int i = 0; i < threadCount; ++i ) {
+				int result = this.advance( states[i], pos, strLen );
+				if ( result == ACCEPTED ) {
+					if ( any ) {
+						return starts[i];
+					}
+					//all the runs after this one started later
+					matchStart = starts[i];
+					break;
+				}
+				if ( result != REJECTED && this.claimed[result] != this.claimStamp ) {
+					this.claimed[result] = this.claimStamp;
+					nextStates[nextThreadCount] = result;
+					nextStarts[nextThreadCount] = starts[i];
+					++nextThreadCount;
+				}
+			}
+
+			int[] tmp = states;
+			states = nextStates;
+			nextStates = tmp;
+			tmp = starts;
+			starts = nextStarts;
+			nextStarts = tmp;
+			threadCount = nextThreadCount;
+			++pos;
+		}
+	}
+
+	/**
+	 * advances a run without variables that is in the given run state at the given position
+	 * the same way {@link #nextMatch(boolean)} does
+	 *
+	 * @return the run state after reading the code point at the given position, {@link #ACCEPTED} or {@link #REJECTED}
+	 */
+	private int advance(int runState, int pos, int strLen) {
+		int state = this.edges.getStateOfRunState( runState );
+		int count = this.edges.getCountOfRunState( runState );
+		this.mi.setPos( pos );
+		while ( true ) {
+			int tokenLen = this.edges.maximalNextTokenLength( state, count, this.vars );
+			if ( tokenLen == 0 ) {
+				this.token.update( this.str, pos, pos );
+				int edge = this.edges.getEdge( state, this.mi, this.vars );
+				if ( edge == -1 ) {
+					return REJECTED;
+				}
+				state = this.edges.getDestination( edge );
+				count = 1;
+				if ( state == FrozenEdgeGraph.SNK ) {
+					return ACCEPTED;
+				}
+				continue;
+			}
+			if ( pos < strLen ) {
+				if ( this.edges.canRepeat( state, count ) && this.edges.readsOwn( state, this.str.codePoint( pos ) ) ) {
+					return this.edges.getRunState( state, this.edges.repeatedCount( state, count ) );
+				}
+				if ( this.edges.canLeave( state, count ) ) {
+					this.token.update( this.str, pos, pos + 1 );
+					int edge = this.edges.getEdge( state, this.mi, this.vars );
+					if ( edge != -1 ) {
+						state = this.edges.getDestination( edge );
+						count = 1;
+						if ( this.edges.isBound( state ) ) {
+							continue;
+						}
+						//runs that can't reach SNK anymore can be dropped right away
+						return this.edges.isDead( state ) ? REJECTED : state;
+					}
+				}
+			}
+			else {
+				this.hitEnd |= this.edges.canReadMore( state, count );
+			}
+			if ( !this.edges.canLeave( state, count ) ) {
+				return REJECTED;
+			}
+			//we were rejected (or are at the end), but let's check if we have to
+			//read \epsilon on the end instead
+			byte emptyAcceptance = this.edges.getEmptyAcceptance( state );
+			if ( emptyAcceptance != FrozenEdgeGraph.EMPTY_CONDITIONAL ) {
+				return emptyAcceptance == FrozenEdgeGraph.EMPTY_ACCEPT ? ACCEPTED : REJECTED;
+			}
+			this.token.reset();
+			while ( state != FrozenEdgeGraph.SNK ) {
+				int edge = this.edges.getEdge( state, this.mi, this.vars );
+				if ( edge == -1 ) {
+					return REJECTED;
+				}
+				state = this.edges.getDestination( edge );
+			}
+			return ACCEPTED;
+		}
+	}
+
 	@Override
 	public boolean matches() {
 		this.reset();
+		//most inputs of the wrong length can be rejected right away
+		int length = this.str.codePointLength();
+		if ( length < this.edges.getMinMatchLength() ) {
+			//whether more input could lead to a match is only found out if hitEnd() is called
+			this.hitEndPending = true;
+			return false;
+		}
+		int maxMatchLength = this.edges.getMaxMatchLength();
+		if ( maxMatchLength != FrozenEdgeGraph.UNBOUNDED && length > maxMatchLength ) {
+			return false;
+		}
+		return this.matchesWholeInput();
+	}
+
+	private boolean matchesWholeInput() {
+		if ( this.firstCodePoints != null ) {
+			if ( this.str.codePointLength() == 0 ) {
+				this.hitEnd = this.edges.canReadMore( FrozenEdgeGraph.SRC );
+				return false;
+			}
+			if ( !this.firstCodePoints.contains( this.str.codePoint( 0 ) ) ) {
+				return false;
+			}
+		}
+		if ( this.requiredLiteral != null ) {
+			boolean possible = this.requiredLiteral.isPrefix() ?
+					this.requiredLiteral.occursAt( this.str, 0 ) :
+					this.requiredLiteral.indexOf( this.str, 0 ) != -1;
+			if ( !possible ) {
+				//more input might still contain the literal
+				this.hitEnd = !this.requiredLiteral.isPrefix() || this.isPrefixOfRequiredLiteral();
+				return false;
+			}
+		}
 		if ( this.nextMatch( false ) ) {
 			if ( this.lastStart == 0 && this.mi.getPos() >= this.str.codePointLength() ) {
 				return true;
@@ -268,12 +661,90 @@ final class MoaMatcherImpl implements CurStateHolder, MoaMatcher {
 		return false;
 	}
 
+	private boolean isPrefixOfRequiredLiteral() {
+		int length = this.str.codePointLength();
+		if ( length >= this.requiredLiteral.length() ) {
+			return false;
+		}
+		for ( int i = 0; i < length; ++i ) {
+			if ( !this.requiredLiteral.matches( i, this.str.codePoint( i ) ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * reads the empty String until SNK is reached or it is rejected. Whether this can succeed
+	 * at all is precomputed, so only states near bounds or variables have to actually step.
+	 *
+	 * @return true if SNK was reached
+	 */
+	private boolean acceptEmpty() {
+		if ( this.isFinished() ) {
+			return true;
+		}
+		if ( !this.edges.canLeave( this.state, this.count ) ) {
+			return false;
+		}
+		switch ( this.edges.getEmptyAcceptance( this.state ) ) {
+			case FrozenEdgeGraph.EMPTY_REJECT:
+				return false;
+			case FrozenEdgeGraph.EMPTY_ACCEPT:
+				this.token.reset();
+				this.act( this.edges.getEpsilonEdge( this.state ) );
+				this.vars.consume( this.token );
+				this.state = FrozenEdgeGraph.SNK;
+				return true;
+			default:
+				this.token.reset();
+				//noinspection StatementWithEmptyBody
+				while ( !this.isFinished() && this.step( this.mi ) != EdgeGraph.StepResult.REJECTED ) {
+
+				}
+				return this.isFinished();
+		}
+	}
+
 	private boolean isFinished() {
-		return this.state == Moa.SNK;
+		return this.state == FrozenEdgeGraph.SNK;
 	}
 
 	private EdgeGraph.StepResult step(MatchInfo mi) {
-		return this.edges.step( this, mi, this.vars );
+		if ( this.edges.canRepeat( this.state, this.count ) ) {
+			EfficientString token = mi.getString();
+			if ( token.codePointLength() == 1 && this.edges.readsOwn( this.state, token.codePoint( 0 ) ) ) {
+				//counted states read their code point again without taking an edge
+				this.vars.consume( token );
+				this.count = this.edges.repeatedCount( this.state, this.count );
+				return EdgeGraph.StepResult.CONSUMED;
+			}
+		}
+		if ( !this.edges.canLeave( this.state, this.count ) ) {
+			return EdgeGraph.StepResult.REJECTED;
+		}
+		int edge = this.edges.getEdge( this.state, mi, this.vars );
+		if ( edge == -1 ) {
+			return EdgeGraph.StepResult.REJECTED;
+		}
+		this.act( edge );
+		//we have found an edge so we can accept this input
+		this.vars.consume( mi.getString() );
+		this.state = this.edges.getDestination( edge );
+		this.count = 1;
+		if ( this.edges.isBound( this.state ) ) {
+			return EdgeGraph.StepResult.NOT_CONSUMED;
+		}
+		return EdgeGraph.StepResult.CONSUMED;
+	}
+
+	private void act(int edge) {
+		if ( this.referencedOnly ) {
+			this.edges.actReferenced( edge, this.vars );
+		}
+		else {
+			this.edges.act( edge, this.vars );
+		}
 	}
 
 	/**
@@ -281,20 +752,20 @@ final class MoaMatcherImpl implements CurStateHolder, MoaMatcher {
 	 */
 	@Override
 	public String getVariableContent(int occurence) {
-		Variable var = this.varsByOccurence.get( occurence );
-		if ( var == null ) {
+		int var = this.edges.getVariableIndexByOccurence( occurence );
+		if ( var == -1 ) {
 			throw new IllegalArgumentException( "variable with occurence " + occurence + " does not exist" );
 		}
-		return var.getContents();
+		return this.vars.getContents( var, this.str );
 	}
 
 	@Override
 	public String getVariableContent(String name) {
-		Variable var = this.vars.get( name );
-		if ( var == null ) {
+		int var = this.edges.getVariableIndex( name );
+		if ( var == -1 ) {
 			throw new IllegalArgumentException( "variable with name " + name + " does not exist" );
 		}
-		return var.getContents();
+		return this.vars.getContents( var, this.str );
 	}
 
 }
@@ -0,0 +1,142 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.github.s4ke.moar.util.CharSeq;
+
+/**
+ * Helpers for the {@link com.github.s4ke.moar.MoaUtf8Matcher}s
+ *
+ * @author Martin Braun
+ */
+final class Utf8 {
+
+	private static final int REPLACEMENT_CHARACTER = 0xFFFD;
+
+	private Utf8() {
+		//can't touch this!
+	}
+
+	static void checkRange(byte[] utf8, int offset, int length) {
+		if ( offset < 0 || length < 0 || offset > utf8.length - length ) {
+			throw new IndexOutOfBoundsException( "offset: " + offset + ", length: " + length + ", array length: " + utf8.length );
+		}
+	}
+
+	static boolean isContinuation(byte b) {
+		return (b & 0xC0) == 0x80;
+	}
+
+	static byte[] encode(CharSequence str) {
+		return str.toString().getBytes( StandardCharsets.UTF_8 );
+	}
+
+	static byte[] encode(CharSeq seq) {
+		StringBuilder builder = new StringBuilder( seq.codePointLength() );
+		for ( int i = 0; i < seq.codePointLength(); ++i ) {
+			builder.appendCodePoint( seq.codePoint( i ) );
+		}
+		return encode( builder );
+	}
+
+	/**
+	 * @return a copy of the remaining bytes of the given buffer, its position is not changed
+	 */
+	static byte[] remaining(ByteBuffer buffer) {
+		byte[] ret = new byte[buffer.remaining()];
+		buffer.duplicate().get( ret );
+		return ret;
+	}
+
+	static String toString(byte[] utf8, int offset, int from, int to) {
+		return new String( utf8, offset + from, to - from, StandardCharsets.UTF_8 );
+	}
+
+	/**
+	 * decodes the given bytes into the given array of code points. Malformed sequences are
+	 * decoded byte by byte into U+FFFD.
+	 *
+	 * @param byteOffsets gets the offset of every decoded code point relative to offset
+	 * (and the length at the index of the returned count)
+	 *
+	 * @return the number of decoded code points
+	 */
+	static int decode(byte[] utf8, int offset, int length, int[] codePoints, int[] byteOffsets) {
+		int count = 0;
+		int pos = 0;
+		while ( pos < length ) {
+			int b = utf8[offset + pos] & 0xFF;
+			int sequenceLength;
+			int codePoint;
+			int min;
+			if ( b < 0x80 ) {
+				sequenceLength = 1;
+				codePoint = b;
+				min = 0;
+			}
+			else if ( b >= 0xC0 && b < 0xE0 ) {
+				sequenceLength = 2;
+				codePoint = b & 0x1F;
+				min = 0x80;
+			}
+			else if ( b >= 0xE0 && b < 0xF0 ) {
+				sequenceLength = 3;
+				codePoint = b & 0x0F;
+				min = 0x800;
+			}
+			else if ( b >= 0xF0 && b < 0xF8 ) {
+				sequenceLength = 4;
+				codePoint = b & 0x07;
+				min = 0x10000;
+			}
+			else {
+				sequenceLength = -1;
+				codePoint = REPLACEMENT_CHARACTER;
+				min = 0;
+			}
+			boolean valid = sequenceLength != -1 && pos + sequenceLength <= length;
+			for ( int i = 1; valid && i < sequenceLength; ++i ) {
+				byte continuation = utf8[offset + pos + i];
+				valid = isContinuation( continuation );
+				codePoint = (codePoint << 6) | (continuation & 0x3F);
+			}
+			valid &= codePoint >= min && codePoint <= Character.MAX_CODE_POINT
+					&& (codePoint < Character.MIN_SURROGATE || codePoint > Character.MAX_SURROGATE);
+			if ( !valid ) {
+				sequenceLength = 1;
+				codePoint = REPLACEMENT_CHARACTER;
+			}
+			codePoints[count] = codePoint;
+			byteOffsets[count] = pos;
+			++count;
+			pos += sequenceLength;
+		}
+		byteOffsets[count] = length;
+		return count;
+	}
+
+}
@@ -0,0 +1,583 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaUtf8Matcher;
+import com.github.s4ke.moar.moa.edgegraph.FrozenEdgeGraph;
+import com.github.s4ke.moar.moa.edgegraph.RequiredLiteral;
+import com.github.s4ke.moar.moa.edgegraph.Utf8Dfa;
+import com.github.s4ke.moar.util.CharSeq;
+
+/**
+ * {@link MoaUtf8Matcher} that runs a {@link Utf8Dfa} directly on the bytes, nothing is decoded.
+ * This is the same as {@link DfaMatcher}, only that every step runs the bytes of the next code point
+ * through the table (see {@link #step(int, int)}), so runs still only end at the start of a code point.
+ *
+ * @author Martin Braun
+ */
+final class Utf8DfaMatcher implements MoaUtf8Matcher {
+
+	private static final int NO_MORE_OCCURENCES = Integer.MAX_VALUE;
+
+	private static final int ACCEPTED = -1;
+	private static final int REJECTED = -2;
+
+	private final Utf8Dfa dfa;
+	private final FrozenEdgeGraph edges;
+	private final RequiredLiteral requiredLiteral;
+	//whether the graph has first code points, see FrozenEdgeGraph#getFirstCodePoints()
+	private final boolean hasFirstBytes;
+	private byte[] bytes;
+	private int offset;
+	private int length;
+
+	private int pos = 0;
+	private int lastMatch = -1;
+	private int lastStart = -1;
+	private int state = FrozenEdgeGraph.SRC;
+	//the next known occurence of the required literal, only valid if it is >= the current position
+	private int requiredLiteralPos = -1;
+	private boolean hitEnd = false;
+	private boolean hitEndPending = false;
+
+	//see findLeftmostMatch
+	private int[] threadStates;
+	private int[] threadStarts;
+	private int[] nextThreadStates;
+	private int[] nextThreadStarts;
+	private int[] claimed;
+	private int claimStamp = 0;
+	private int matchEnd = -1;
+	//the position after the code point read by the last call of step
+	private int stepEnd;
+
+	Utf8DfaMatcher(Utf8Dfa dfa, byte[] utf8, int offset, int length) {
+		this.dfa = dfa;
+		this.edges = dfa.getDfa().getEdges();
+		this.requiredLiteral = this.edges.getRequiredLiteral();
+		this.hasFirstBytes = this.edges.getFirstCodePoints() != null;
+		this.reuse( utf8, offset, length );
+		if ( this.hasFirstBytes ) {
+			//at most one run per state plus the one that is started at the current position
+			int maxThreads = this.dfa.getDfa().getStateCount() + 1;
+			this.threadStates = new int[maxThreads];
+			this.threadStarts = new int[maxThreads];
+			this.nextThreadStates = new int[maxThreads];
+			this.nextThreadStarts = new int[maxThreads];
+			this.claimed = new int[this.dfa.getDfa().getStateCount()];
+		}
+	}
+
+	public void reset() {
+		this.state = FrozenEdgeGraph.SRC;
+		this.pos = 0;
+		this.lastMatch = -1;
+		this.requiredLiteralPos = -1;
+		this.hitEnd = false;
+		this.hitEndPending = false;
+	}
+
+	@Override
+	public MoaUtf8Matcher reuse(byte[] utf8, int offset, int length) {
+		Utf8.checkRange( utf8, offset, length );
+		this.reset();
+		this.bytes = utf8;
+		this.offset = offset;
+		this.length = length;
+		return this;
+	}
+
+	@Override
+	public MoaUtf8Matcher reuse(ByteBuffer utf8) {
+		if ( utf8.hasArray() ) {
+			return this.reuse( utf8.array(), utf8.arrayOffset() + utf8.position(), utf8.remaining() );
+		}
+		byte[] bytes = Utf8.remaining( utf8 );
+		return this.reuse( bytes, 0, bytes.length );
+	}
+
+	@Override
+	public MoaMatcher reuse(CharSequence str) {
+		byte[] bytes = Utf8.encode( str );
+		return this.reuse( bytes, 0, bytes.length );
+	}
+
+	@Override
+	public MoaMatcher reuse(CharSeq seq) {
+		byte[] bytes = Utf8.encode( seq );
+		return this.reuse( bytes, 0, bytes.length );
+	}
+
+	@Override
+	public String replaceFirst(String replacement) {
+		this.reset();
+		if ( this.nextMatch() ) {
+			return Utf8.toString( this.bytes, this.offset, 0, this.lastStart )
+					+ replacement
+					+ Utf8.toString( this.bytes, this.offset, this.pos, this.length );
+		}
+		else {
+			return Utf8.toString( this.bytes, this.offset, 0, this.length );
+		}
+	}
+
+	@Override
+	public String replaceAll(String replacement) {
+		this.reset();
+
+		StringBuilder ret = new StringBuilder( this.length );
+		int prefixStart = 0;
+		while ( this.nextMatch() ) {
+			ret.append( Utf8.toString( this.bytes, this.offset, prefixStart, this.lastStart ) );
+			ret.append( replacement );
+			prefixStart = this.lastMatch;
+		}
+		ret.append( Utf8.toString( this.bytes, this.offset, prefixStart, this.length ) );
+		return ret.toString();
+	}
+
+	@Override
+	public int getStart() {
+		if ( !this.isFinished() ) {
+			throw new IllegalStateException( "did not match on the last call" );
+		}
+		return this.lastStart;
+	}
+
+	@Override
+	public int getEnd() {
+		if ( !this.isFinished() ) {
+			throw new IllegalStateException( "did not match on the last call" );
+		}
+		return this.lastMatch;
+	}
+
+	@Override
+	public boolean nextMatch() {
+		this.hitEnd = false;
+		this.hitEndPending = false;
+		if ( this.nextMatch( true ) ) {
+			return true;
+		}
+		//more input could always contain a match
+		this.hitEnd = this.dfa.canReadMore( FrozenEdgeGraph.SRC );
+		return false;
+	}
+
+	@Override
+	public boolean contains() {
+		this.reset();
+		boolean found = this.hasFirstBytes ?
+				this.findLeftmostMatch( 0, this.length, true ) != -1 :
+				this.nextMatch( true );
+		this.reset();
+		return found;
+	}
+
+	@Override
+	public int count() {
+		this.reset();
+		int count = 0;
+		while ( this.nextMatch( true ) ) {
+			++count;
+			if ( this.lastStart == this.lastMatch ) {
+				//an empty match would be found at the same position again
+				if ( this.pos >= this.length ) {
+					break;
+				}
+				this.pos = this.nextCodePoint( this.pos );
+			}
+		}
+		this.reset();
+		return count;
+	}
+
+	@Override
+	public boolean hitEnd() {
+		if ( this.hitEndPending ) {
+			this.reset();
+			this.matchesWholeInput();
+		}
+		return this.hitEnd;
+	}
+
+	private boolean nextMatch(boolean advanceOnReject) {
+		this.state = FrozenEdgeGraph.SRC;
+		int curStart = this.pos;
+		int strLen = this.length;
+		//whether the last step was rejected
+		boolean rejected = false;
+
+		if ( this.hasFirstBytes && advanceOnReject ) {
+			int matchStart = this.findLeftmostMatch( this.pos, strLen, false );
+			if ( matchStart == -1 ) {
+				this.pos = strLen;
+				return false;
+			}
+			this.state = FrozenEdgeGraph.SNK;
+			this.lastStart = matchStart;
+			this.pos = this.matchEnd;
+			this.lastMatch = this.matchEnd;
+			return true;
+		}
+
+		while ( !this.isFinished() && this.pos < strLen ) {
+			curStart = this.pos;
+			{
+				int candidate = this.nextStartByContents( curStart );
+				if ( candidate == -1 ) {
+					this.pos = strLen;
+					break;
+				}
+				if ( candidate > curStart ) {
+					if ( !advanceOnReject ) {
+						return false;
+					}
+					curStart = candidate;
+					this.pos = curStart;
+				}
+			}
+			while ( !this.isFinished() && this.pos < strLen ) {
+				if ( !this.dfa.reads( this.state ) ) {
+					//only the epsilon edge can be taken
+					rejected = !this.dfa.accepts( this.state );
+					if ( rejected ) {
+						if ( !advanceOnReject ) {
+							return false;
+						}
+						this.pos = this.nextCodePoint( curStart );
+						break;
+					}
+					this.state = FrozenEdgeGraph.SNK;
+					continue;
+				}
+				int next = this.step( this.state, this.pos );
+				rejected = next == -1;
+				if ( rejected ) {
+					if ( !advanceOnReject ) {
+						return false;
+					}
+					//we were rejected, but let's check if we have to
+					//read \epsilon on the end instead
+					if ( this.dfa.accepts( this.state ) ) {
+						this.state = FrozenEdgeGraph.SNK;
+						this.lastStart = curStart;
+						this.lastMatch = this.pos;
+						return true;
+					}
+					this.pos = this.nextCodePoint( curStart );
+					break;
+				}
+				this.state = next;
+				this.pos = this.stepEnd;
+				if ( !advanceOnReject && this.dfa.isDead( this.state ) ) {
+					//no input that follows can lead to a match anymore
+					return false;
+				}
+			}
+			if ( !rejected ) {
+				//more input could have let the run go on
+				this.hitEnd |= !this.isFinished() && this.pos >= strLen && this.dfa.canReadMore( this.state );
+				this.acceptEmpty();
+			}
+
+			if ( !this.isFinished() ) {
+				this.state = FrozenEdgeGraph.SRC;
+				if ( advanceOnReject ) {
+					//the run ended at the end of the input without a match, which is the
+					//same as being rejected there, so the next run starts right after this one
+					this.pos = this.nextCodePoint( curStart );
+				}
+			}
+			else {
+				this.lastStart = curStart;
+			}
+		}
+
+		//allow to get into the final state for the case we can have an epsilon string
+		if ( !this.isFinished() && this.lastMatch != this.pos ) {
+			this.hitEnd |= this.pos >= strLen && this.dfa.canReadMore( this.state );
+			if ( !rejected ) {
+				this.acceptEmpty();
+			}
+
+			if ( !this.isFinished() ) {
+				this.state = FrozenEdgeGraph.SRC;
+			}
+			else {
+				this.lastStart = curStart;
+			}
+		}
+
+		if ( this.isFinished() ) {
+			this.lastMatch = this.pos;
+		}
+
+		return this.isFinished();
+	}
+
+	private void acceptEmpty() {
+		if ( this.dfa.accepts( this.state ) ) {
+			this.state = FrozenEdgeGraph.SNK;
+		}
+	}
+
+	/**
+	 * reads the bytes of the code point at the given position, the position after it is stored in {@link #stepEnd}
+	 *
+	 * @return the state after reading the code point or -1 if it can't be read (or is cut off)
+	 */
+	private int step(int state, int pos) {
+		int next = this.dfa.next( state, this.bytes[this.offset + pos] & 0xFF );
+		int end = pos + 1;
+		while ( next != -1 && this.dfa.isIntermediate( next ) ) {
+			next = end < this.length ? this.dfa.next( next, this.bytes[this.offset + end] & 0xFF ) : -1;
+			++end;
+		}
+		this.stepEnd = end;
+		return next;
+	}
+
+	/**
+	 * @return the start of the code point after the one at the given position
+	 */
+	private int nextCodePoint(int pos) {
+		int next = pos + 1;
+		while ( next < this.length && Utf8.isContinuation( this.bytes[this.offset + next] ) ) {
+			++next;
+		}
+		return next;
+	}
+
+	/**
+	 * @return the first position at or after the given one where a match could start
+	 * according to the required literal and the first bytes or -1 if there is none
+	 */
+	private int nextStartByContents(int from) {
+		int start = from;
+		if ( this.requiredLiteral != null ) {
+			//no match can start after the last occurence of the required literal
+			if ( this.requiredLiteralPos < start ) {
+				int occurence = this.requiredLiteral.indexOf( this.bytes, this.offset, this.length, start );
+				this.requiredLiteralPos = occurence != -1 ? occurence : NO_MORE_OCCURENCES;
+			}
+			if ( this.requiredLiteralPos == NO_MORE_OCCURENCES ) {
+				return -1;
+			}
+			if ( this.requiredLiteral.isPrefix() ) {
+				start = this.requiredLiteralPos;
+			}
+		}
+		if ( this.hasFirstBytes ) {
+			//skip all positions no match can start at
+			while ( start < this.length && !this.dfa.isFirstByte( this.bytes[this.offset + start] & 0xFF ) ) {
+				++start;
+			}
+			if ( start == this.length ) {
+				return -1;
+			}
+		}
+		return start;
+	}
+
+	/**
+	 * Runs the table from all possible starts at once, see {@link DfaMatcher}.
+	 * All runs read the same code points, so they move from one code point to the next together.
+	 *
+	 * @param any whether to stop as soon as any run is sure to end with a match, the
+	 * returned position then only tells that there is a match (and {@link #matchEnd} is not set)
+	 *
+	 * @return the start of the leftmost match at or after the given position or -1 if there is none
+	 */
+	private int findLeftmostMatch(int from, int strLen, boolean any) {
+		int[] states = this.threadStates;
+		int[] starts = this.threadStarts;
+		int[] nextStates = this.nextThreadStates;
+		int[] nextStarts = this.nextThreadStarts;
+		int threadCount = 0;
+		int matchStart = -1;
+		int pos = from;
+		while ( true ) {
+			if ( threadCount == 0 ) {
+				if ( matchStart != -1 ) {
+					return matchStart;
+				}
+				if ( pos >= strLen ) {
+					return -1;
+				}
+				pos = this.nextStartByContents( pos );
+				if ( pos == -1 ) {
+					return -1;
+				}
+			}
+			//runs starting later than a found match can't produce the leftmost match anymore
+			if ( matchStart == -1 && pos < strLen && this.dfa.isFirstByte( this.bytes[this.offset + pos] & 0xFF ) ) {
+				states[threadCount] = FrozenEdgeGraph.SRC;
+				starts[threadCount] = pos;
+				++threadCount;
+			}
+
+			if ( ++this.claimStamp == 0 ) {
+				Arrays.fill( this.claimed, 0 );
+				this.claimStamp = 1;
+			}
+			int nextThreadCount = 0;
+			for ( int i = 0; i < threadCount; ++i ) {
+				int result = this.advance( states[i], pos, strLen );
+				if ( any && (result == ACCEPTED || (result != REJECTED && this.dfa.surelyAccepts( result ))) ) {
+					return starts[i];
+				}
+				if ( result == ACCEPTED ) {
+					//all the runs after this one started later
+					matchStart = starts[i];
+					this.matchEnd = pos;
+					break;
+				}
+				if ( result != REJECTED && this.claimed[result] != this.claimStamp ) {
+					this.claimed[result] = this.claimStamp;
+					nextStates[nextThreadCount] = result;
+					nextStarts[nextThreadCount] = starts[i];
+					++nextThreadCount;
+				}
+			}
+
+			int[] tmp = states;
+			states = nextStates;
+			nextStates = tmp;
+			tmp = starts;
+			starts = nextStarts;
+			nextStarts = tmp;
+			threadCount = nextThreadCount;
+			pos = this.nextCodePoint( pos );
+		}
+	}
+
+	/**
+	 * @return the state after reading the code point at the given position, {@link #ACCEPTED} or {@link #REJECTED}
+	 */
+	private int advance(int state, int pos, int strLen) {
+		if ( this.dfa.reads( state ) ) {
+			if ( pos < strLen ) {
+				int next = this.step( state, pos );
+				if ( next != -1 ) {
+					//runs that can't reach SNK anymore can be dropped right away
+					return this.dfa.isDead( next ) ? REJECTED : next;
+				}
+			}
+			else {
+				this.hitEnd |= this.dfa.canReadMore( state );
+			}
+		}
+		return this.dfa.accepts( state ) ? ACCEPTED : REJECTED;
+	}
+
+	@Override
+	public boolean matches() {
+		this.reset();
+		//most inputs of the wrong length can be rejected right away, there are at most as many code points as bytes
+		if ( this.length < this.edges.getMinMatchLength() ) {
+			//whether more input could lead to a match is only found out if hitEnd() is called
+			this.hitEndPending = true;
+			return false;
+		}
+		int maxMatchLength = this.edges.getMaxMatchLength();
+		if ( maxMatchLength != FrozenEdgeGraph.UNBOUNDED && this.length > maxMatchLength
+				&& this.hasMoreCodePointsThan( maxMatchLength ) ) {
+			return false;
+		}
+		return this.matchesWholeInput();
+	}
+
+	private boolean hasMoreCodePointsThan(int count) {
+		int codePoints = 0;
+		for ( int i = 0; i < this.length; ++i ) {
+			if ( !Utf8.isContinuation( this.bytes[this.offset + i] ) && ++codePoints > count ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean matchesWholeInput() {
+		if ( this.hasFirstBytes ) {
+			if ( this.length == 0 ) {
+				this.hitEnd = this.dfa.canReadMore( FrozenEdgeGraph.SRC );
+				return false;
+			}
+			if ( !this.startsWithFirstCodePoint() ) {
+				return false;
+			}
+		}
+		if ( this.requiredLiteral != null ) {
+			boolean possible = this.requiredLiteral.isPrefix() ?
+					this.requiredLiteral.occursAt( this.bytes, this.offset, this.length, 0 ) :
+					this.requiredLiteral.indexOf( this.bytes, this.offset, this.length, 0 ) != -1;
+			if ( !possible ) {
+				//more input might still contain the literal
+				this.hitEnd = !this.requiredLiteral.isPrefix() || this.isPrefixOfRequiredLiteral();
+				return false;
+			}
+		}
+		return this.nextMatch( false ) && this.lastStart == 0 && this.pos >= this.length;
+	}
+
+	/**
+	 * @return true if the input starts with a code point a match can start with, other than
+	 * {@link Utf8Dfa#isFirstByte(int)} this looks at all the bytes of the code point
+	 */
+	private boolean startsWithFirstCodePoint() {
+		return this.step( FrozenEdgeGraph.SRC, 0 ) != -1;
+	}
+
+	private boolean isPrefixOfRequiredLiteral() {
+		if ( this.length >= this.requiredLiteral.utf8Length() ) {
+			return false;
+		}
+		for ( int i = 0; i < this.length; ++i ) {
+			if ( !this.requiredLiteral.utf8ByteMatches( i, this.bytes[this.offset + i] ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isFinished() {
+		return this.state == FrozenEdgeGraph.SNK;
+	}
+
+	@Override
+	public String getVariableContent(int occurence) {
+		throw new IllegalArgumentException( "variable with occurence " + occurence + " does not exist" );
+	}
+
+	@Override
+	public String getVariableContent(String name) {
+		throw new IllegalArgumentException( "variable with name " + name + " does not exist" );
+	}
+
+}
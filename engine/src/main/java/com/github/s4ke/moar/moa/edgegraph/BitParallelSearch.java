@@ -0,0 +1,188 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa.edgegraph;
+
+/**
+ * Bit-parallel simulation of all the runs of a {@link Dfa} that are active at the same time
+ * (one started at every position) for graphs with at most 64 states. As every state reads exactly
+ * the code points of its own {@link com.github.s4ke.moar.moa.states.State} (like the positions of a Glushkov automaton),
+ * the states after reading a code point of class c are {@code follow(states) & enter(c)}.
+ * <p/>
+ * The follow sets are looked up with one table per 8 states, so a step is a handful of table lookups
+ * without any branches, no matter how many runs are active. The same kind of table is kept for the
+ * reversed graph, which allows to go back from the states at some position to the positions runs
+ * in these states could have started at.
+ *
+ * @author Martin Braun
+ */
+public final class BitParallelSearch {
+
+	public static final int MAX_STATES = Long.SIZE;
+
+	private static final int CHUNK_BITS = 8;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private final int chunkCount;
+	//chunk * CHUNK_SIZE + bits of the chunk -> the states following any of them
+	private final long[] follow;
+	//the same for the reversed graph
+	private final long[] precede;
+	private final long[] enter;
+	private final long[] acceptBefore;
+	private final long accepting;
+	private final long surelyAccepting;
+	private final long canReadMore;
+
+	private BitParallelSearch(Dfa dfa) {
+		CodePointClasses classes = dfa.getCodePointClasses();
+		int stateCount = dfa.getStateCount();
+		int classCount = classes.getClassCount();
+
+		long[] successors = new long[stateCount];
+		long[] predecessors = new long[stateCount];
+		this.enter = new long[classCount];
+		this.acceptBefore = new long[classCount];
+		long accepting = 0;
+		long surelyAccepting = 0;
+		long canReadMore = 0;
+		for ( int state = 0; state < stateCount; ++state ) {
+			long bit = 1L << state;
+			if ( dfa.accepts( state ) ) {
+				accepting |= bit;
+			}
+			if ( dfa.surelyAccepts( state ) ) {
+				surelyAccepting |= bit;
+			}
+			if ( dfa.canReadMore( state ) ) {
+				canReadMore |= bit;
+			}
+			for ( int classId = 0; classId < classCount; ++classId ) {
+				int next = dfa.nextOfClass( state, classId );
+				if ( next == -1 ) {
+					//the run can't go on, so it ends here if it accepts
+					this.acceptBefore[classId] |= bit;
+				}
+				else if ( !dfa.isDead( next ) ) {
+					successors[state] |= 1L << next;
+					predecessors[next] |= bit;
+					this.enter[classId] |= 1L << next;
+				}
+			}
+		}
+		this.accepting = accepting;
+		this.surelyAccepting = surelyAccepting;
+		this.canReadMore = canReadMore;
+		for ( int classId = 0; classId < classCount; ++classId ) {
+			this.acceptBefore[classId] &= accepting;
+		}
+
+		this.chunkCount = (stateCount + CHUNK_BITS - 1) / CHUNK_BITS;
+		this.follow = this.chunkTable( successors );
+		this.precede = this.chunkTable( predecessors );
+	}
+
+	private long[] chunkTable(long[] neighbours) {
+		long[] ret = new long[this.chunkCount * CHUNK_SIZE];
+		for ( int chunk = 0; chunk < this.chunkCount; ++chunk ) {
+			for ( int bits = 1; bits < CHUNK_SIZE; ++bits ) {
+				//the entry for bits is the one for bits without its lowest bit plus the neighbours of the lowest bit
+				int state = chunk * CHUNK_BITS + Integer.numberOfTrailingZeros( bits );
+				long lowestNeighbours = state < neighbours.length ? neighbours[state] : 0L;
+				ret[chunk * CHUNK_SIZE + bits] = ret[chunk * CHUNK_SIZE + (bits & (bits - 1))] | lowestNeighbours;
+			}
+		}
+		return ret;
+	}
+
+	private long lookup(long[] table, long states) {
+		long ret = 0;
+		for ( int chunk = 0; chunk < this.chunkCount; ++chunk ) {
+			ret |= table[(chunk << CHUNK_BITS) | (int) ((states >>> (chunk * CHUNK_BITS)) & CHUNK_MASK)];
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the bit-parallel search for the given table or null if it has more than {@link #MAX_STATES} states
+	 */
+	public static BitParallelSearch of(Dfa dfa) {
+		if ( dfa.getStateCount() > MAX_STATES ) {
+			return null;
+		}
+		return new BitParallelSearch( dfa );
+	}
+
+	/**
+	 * @return all the states any of the given states can go to by reading a single code point
+	 */
+	public long follow(long states) {
+		return this.lookup( this.follow, states );
+	}
+
+	/**
+	 * @return all the (live) states that can go to any of the given states by reading a single code point.
+	 * The states before reading a code point of class c are {@code precede(states & enter(c))}
+	 */
+	public long precede(long states) {
+		return this.lookup( this.precede, states );
+	}
+
+	/**
+	 * @return the (live) states that are entered by reading a code point of the given class
+	 */
+	public long enter(int classId) {
+		return this.enter[classId];
+	}
+
+	/**
+	 * @return the accepting states that can't read a code point of the given class, i.e. the
+	 * states in which a run ends with a match right before such a code point
+	 */
+	public long acceptBefore(int classId) {
+		return this.acceptBefore[classId];
+	}
+
+	/**
+	 * @return the states that accept the empty String
+	 */
+	public long accepting() {
+		return this.accepting;
+	}
+
+	/**
+	 * @see Dfa#surelyAccepts(int)
+	 */
+	public long surelyAccepting() {
+		return this.surelyAccepting;
+	}
+
+	/**
+	 * @see Dfa#canReadMore(int)
+	 */
+	public long canReadMore() {
+		return this.canReadMore;
+	}
+
+}
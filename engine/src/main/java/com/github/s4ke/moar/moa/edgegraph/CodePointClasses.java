@@ -0,0 +1,266 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa.edgegraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.github.s4ke.moar.strings.CodePointSet;
+import com.github.s4ke.moar.util.CaseFolding;
+
+/**
+ * A partition of all code points into classes that no state of a {@link FrozenEdgeGraph}
+ * can tell apart: two code points are in the same class if every static state reads either both or none of them
+ * and every {@link CodePointSet} contains either both or none of them. Transition tables can then
+ * be indexed by the class of a code point instead of the code point itself.
+ * <p/>
+ * The classes are stored in a two-level lookup: the upper bits of a code point select a block
+ * of {@link #BLOCK_SIZE} class ids, the lower bits the entry in it. Blocks with the same contents
+ * are only stored once, so the whole table stays small even for sets like [^a-z] or \w.
+ * <p/>
+ * For {@link FrozenEdgeGraph#isCaseInsensitive() case-insensitive} graphs the upper case variant
+ * of a static code point is put into the same class, so the tables fold the input for free.
+ *
+ * @author Martin Braun
+ */
+public final class CodePointClasses {
+
+	public static final int BLOCK_SIZE = 256;
+
+	private static final int BLOCK_SHIFT = 8;
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+	private static final int CODE_POINT_LIMIT = Character.MAX_CODE_POINT + 1;
+	private static final int BLOCK_COUNT = CODE_POINT_LIMIT / BLOCK_SIZE;
+	private static final int MAX_CLASSES = Character.MAX_VALUE + 1;
+
+	private final char[] blocks;
+	private final char[] classes;
+	private final int[] representatives;
+	private final int[] intervalStarts;
+	private final int[] intervalClasses;
+
+	private CodePointClasses(
+			char[] blocks,
+			char[] classes,
+			int[] representatives,
+			int[] intervalStarts,
+			int[] intervalClasses) {
+		this.blocks = blocks;
+		this.classes = classes;
+		this.representatives = representatives;
+		this.intervalStarts = intervalStarts;
+		this.intervalClasses = intervalClasses;
+	}
+
+	/**
+	 * @return the classes of the given graph or null if there are too many of them to be stored compactly
+	 */
+	public static CodePointClasses of(FrozenEdgeGraph edges) {
+		TreeSet<Integer> codePoints = new TreeSet<>();
+		List<CodePointSet> sets = new ArrayList<>();
+		for ( int state = 0; state < edges.getStateCount(); ++state ) {
+			if ( edges.getKind( state ) == FrozenEdgeGraph.STATIC && edges.getCodePoint( state ) >= 0 ) {
+				codePoints.add( edges.getCodePoint( state ) );
+			}
+			else if ( edges.getKind( state ) == FrozenEdgeGraph.SET && !sets.contains( edges.getSet( state ) ) ) {
+				sets.add( edges.getSet( state ) );
+			}
+		}
+
+		//the code points at which any state changes its mind, these split the code points into intervals
+		boolean caseInsensitive = edges.isCaseInsensitive();
+		TreeSet<Integer> boundaries = new TreeSet<>();
+		boundaries.add( 0 );
+		for ( int codePoint : codePoints ) {
+			boundaries.add( codePoint );
+			if ( codePoint + 1 < CODE_POINT_LIMIT ) {
+				boundaries.add( codePoint + 1 );
+			}
+			int upperCase = CaseFolding.upperCaseVariant( codePoint );
+			if ( caseInsensitive && upperCase != -1 ) {
+				boundaries.add( upperCase );
+				boundaries.add( upperCase + 1 );
+			}
+		}
+		for ( CodePointSet set : sets ) {
+			set.addBoundariesTo( boundaries, CODE_POINT_LIMIT );
+		}
+
+		//intervals that are read by the same states share a class
+		int[] intervalStarts = new int[boundaries.size() + 1];
+		int[] intervalClasses = new int[boundaries.size()];
+		Map<BitSet, Integer> classIds = new HashMap<>();
+		Map<Integer, Integer> staticClassIds = new HashMap<>();
+		List<Integer> representatives = new ArrayList<>();
+		int interval = 0;
+		for ( int start : boundaries ) {
+			BitSet signature = new BitSet( sets.size() + 1 );
+			for ( int i = 0; i < sets.size(); ++i ) {
+				signature.set( i, sets.get( i ).intersects( start ) );
+			}
+			//the representatives are folded so they can be looked up in the graph directly
+			int folded = caseInsensitive ? CaseFolding.fold( start ) : start;
+			Integer classId;
+			if ( codePoints.contains( folded ) ) {
+				//a static code point is distinguished from everything else (but its other case)
+				classId = staticClassIds.get( folded );
+				if ( classId == null ) {
+					classId = representatives.size();
+					staticClassIds.put( folded, classId );
+				}
+			}
+			else {
+				classId = classIds.get( signature );
+				if ( classId == null ) {
+					classId = representatives.size();
+					classIds.put( signature, classId );
+				}
+			}
+			if ( classId == representatives.size() ) {
+				if ( classId == MAX_CLASSES ) {
+					return null;
+				}
+				representatives.add( folded );
+			}
+			intervalStarts[interval] = start;
+			intervalClasses[interval] = classId;
+			++interval;
+		}
+		intervalStarts[interval] = CODE_POINT_LIMIT;
+
+		char[] blocks = new char[BLOCK_COUNT];
+		List<char[]> distinctBlocks = new ArrayList<>();
+		Map<String, Integer> blockIds = new HashMap<>();
+		Map<Integer, Integer> uniformBlockIds = new HashMap<>();
+		interval = 0;
+		int block = 0;
+		while ( block < BLOCK_COUNT ) {
+			int blockStart = block << BLOCK_SHIFT;
+			while ( intervalStarts[interval + 1] <= blockStart ) {
+				++interval;
+			}
+			int intervalEnd = intervalStarts[interval + 1];
+			if ( intervalEnd >= blockStart + BLOCK_SIZE ) {
+				//most blocks lie in a single interval, no need to look at every code point
+				Integer blockId = uniformBlockIds.get( intervalClasses[interval] );
+				if ( blockId == null ) {
+					char[] contents = new char[BLOCK_SIZE];
+					Arrays.fill( contents, (char) intervalClasses[interval] );
+					blockId = distinctBlocks.size();
+					uniformBlockIds.put( intervalClasses[interval], blockId );
+					blockIds.put( new String( contents ), blockId );
+					distinctBlocks.add( contents );
+				}
+				int blockEnd = intervalEnd >>> BLOCK_SHIFT;
+				Arrays.fill( blocks, block, blockEnd, (char) (int) blockId );
+				block = blockEnd;
+				continue;
+			}
+			char[] contents = new char[BLOCK_SIZE];
+			for ( int i = 0; i < BLOCK_SIZE; ++i ) {
+				while ( intervalStarts[interval + 1] <= blockStart + i ) {
+					++interval;
+				}
+				contents[i] = (char) intervalClasses[interval];
+			}
+			String key = new String( contents );
+			Integer blockId = blockIds.get( key );
+			if ( blockId == null ) {
+				blockId = distinctBlocks.size();
+				blockIds.put( key, blockId );
+				distinctBlocks.add( contents );
+			}
+			blocks[block] = (char) (int) blockId;
+			++block;
+		}
+
+		char[] classes = new char[distinctBlocks.size() * BLOCK_SIZE];
+		for ( int i = 0; i < distinctBlocks.size(); ++i ) {
+			System.arraycopy( distinctBlocks.get( i ), 0, classes, i * BLOCK_SIZE, BLOCK_SIZE );
+		}
+		int[] representativesArray = new int[representatives.size()];
+		for ( int i = 0; i < representativesArray.length; ++i ) {
+			representativesArray[i] = representatives.get( i );
+		}
+		return new CodePointClasses( blocks, classes, representativesArray, intervalStarts, intervalClasses );
+	}
+
+	/**
+	 * @return the id of the class of the given code point, in [0, {@link #getClassCount()})
+	 */
+	public int classOf(int codePoint) {
+		return this.classes[(this.blocks[codePoint >>> BLOCK_SHIFT] << BLOCK_SHIFT) | (codePoint & BLOCK_MASK)];
+	}
+
+	public int getClassCount() {
+		return this.representatives.length;
+	}
+
+	/**
+	 * @return some code point of the given class
+	 */
+	public int getRepresentative(int classId) {
+		return this.representatives[classId];
+	}
+
+	/**
+	 * @return the number of maximal intervals of consecutive code points that share a class
+	 */
+	public int getIntervalCount() {
+		return this.intervalClasses.length;
+	}
+
+	/**
+	 * @return the first code point of the given interval, the interval ends right before the start of the next one.
+	 * For {@link #getIntervalCount()} this is the code point after {@link Character#MAX_CODE_POINT}
+	 */
+	public int getIntervalStart(int interval) {
+		return this.intervalStarts[interval];
+	}
+
+	public int getIntervalClass(int interval) {
+		return this.intervalClasses[interval];
+	}
+
+	/**
+	 * @return the interval the given code point is part of
+	 */
+	public int intervalOf(int codePoint) {
+		int idx = Arrays.binarySearch( this.intervalStarts, 0, this.intervalClasses.length, codePoint );
+		return idx >= 0 ? idx : -idx - 2;
+	}
+
+	/**
+	 * @return the number of distinct blocks that are stored
+	 */
+	public int getBlockCount() {
+		return this.classes.length / BLOCK_SIZE;
+	}
+
+}
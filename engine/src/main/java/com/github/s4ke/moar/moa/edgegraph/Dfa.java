@@ -0,0 +1,237 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa.edgegraph;
+
+/**
+ * The transitions of a {@link FrozenEdgeGraph} as a plain table from state and code point
+ * to the next state. This is only possible for graphs without bound states, backreferences
+ * and capturing groups: every state then either reads a code point or accepts the empty String
+ * (or both), so there is no need for {@link com.github.s4ke.moar.moa.states.MatchInfo}s
+ * or {@link com.github.s4ke.moar.moa.states.VariableSlots} while matching.
+ * <p/>
+ * The table is indexed by the {@link CodePointClasses} of the graph instead of the code points
+ * themselves, so it covers all of Unicode while only having a column for every class.
+ * <p/>
+ * The states of the table are the {@link FrozenEdgeGraph#getRunState(int, int) run states} of the graph,
+ * so counted states get a row for every count. These are the same as the states of the graph if
+ * there are no counted states.
+ *
+ * @author Martin Braun
+ */
+public final class Dfa {
+
+	/**
+	 * graphs with more states are left to the interpreter to keep the table small
+	 */
+	public static final int MAX_STATES = 1024;
+
+	/**
+	 * graphs that need more entries than this are left to the interpreter as well
+	 */
+	public static final int MAX_TABLE_SIZE = MAX_STATES * 256;
+
+	private final FrozenEdgeGraph edges;
+	private final CodePointClasses classes;
+	private final int classCount;
+	private final int stateCount;
+	private final int[] next;
+	private final boolean[] reads;
+	private final boolean[] accepts;
+	private final boolean[] dead;
+	private final boolean[] canReadMore;
+	private final boolean[] surelyAccepts;
+	private final BitParallelSearch bitParallelSearch;
+	private Utf8Dfa utf8Dfa;
+	private boolean utf8DfaBuilt = false;
+
+	private Dfa(FrozenEdgeGraph edges, CodePointClasses classes) {
+		this.edges = edges;
+		this.classes = classes;
+		this.classCount = classes.getClassCount();
+		this.stateCount = edges.getRunStateCount();
+		this.next = new int[this.stateCount * this.classCount];
+		this.reads = new boolean[this.stateCount];
+		this.accepts = new boolean[this.stateCount];
+		this.dead = new boolean[this.stateCount];
+		this.canReadMore = new boolean[this.stateCount];
+		for ( int runState = 0; runState < this.stateCount; ++runState ) {
+			int state = edges.getStateOfRunState( runState );
+			int count = edges.getCountOfRunState( runState );
+			boolean repeats = edges.canRepeat( state, count );
+			boolean leaves = edges.canLeave( state, count );
+			boolean readsEdges = leaves && edges.getSetEdgeEnd( state ) > edges.getEdgeStart( state );
+			this.reads[runState] = repeats || readsEdges;
+			this.accepts[runState] = leaves && edges.getEmptyAcceptance( state ) == FrozenEdgeGraph.EMPTY_ACCEPT;
+			this.dead[runState] = edges.isDead( state );
+			this.canReadMore[runState] = edges.canReadMore( state, count );
+			for ( int classId = 0; classId < this.classCount; ++classId ) {
+				//all code points of a class lead to the same state
+				int representative = classes.getRepresentative( classId );
+				int next = -1;
+				if ( repeats && edges.readsOwn( state, representative ) ) {
+					next = edges.getRunState( state, edges.repeatedCount( state, count ) );
+				}
+				else if ( readsEdges ) {
+					int edge = edges.getStaticOrSetEdge( state, representative );
+					next = edge != -1 ? edges.getDestination( edge ) : -1;
+				}
+				this.next[runState * this.classCount + classId] = next;
+			}
+		}
+		this.surelyAccepts = this.computeSurelyAccepts();
+		this.bitParallelSearch = BitParallelSearch.of( this );
+	}
+
+	/**
+	 * finds out for every state whether a run in it ends with a match no matter what is read next,
+	 * i.e. it accepts the empty String and so does every state it can go to
+	 */
+	private boolean[] computeSurelyAccepts() {
+		boolean[] ret = this.accepts.clone();
+		boolean changed = true;
+		while ( changed ) {
+			changed = false;
+			for ( int state = 0; state < this.stateCount; ++state ) {
+				if ( !ret[state] ) {
+					continue;
+				}
+				for ( int classId = 0; classId < this.classCount; ++classId ) {
+					int next = this.next[state * this.classCount + classId];
+					if ( next != -1 && !ret[next] ) {
+						ret[state] = false;
+						changed = true;
+						break;
+					}
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the table for the given graph or null if it contains bound states, backreferences
+	 * or capturing groups, has more than {@link #MAX_STATES} (run) states or the table would have more
+	 * than {@link #MAX_TABLE_SIZE} entries
+	 */
+	public static Dfa of(FrozenEdgeGraph edges) {
+		CodePointClasses classes = edges.getCodePointClasses();
+		int stateCount = edges.getRunStateCount();
+		if ( edges.getVariableCount() > 0 || stateCount == -1 || stateCount > MAX_STATES || classes == null
+				|| (long) stateCount * classes.getClassCount() > MAX_TABLE_SIZE ) {
+			return null;
+		}
+		for ( int state = 0; state < edges.getStateCount(); ++state ) {
+			byte kind = edges.getKind( state );
+			if ( kind == FrozenEdgeGraph.BOUND || kind == FrozenEdgeGraph.VARIABLE ) {
+				return null;
+			}
+		}
+		return new Dfa( edges, classes );
+	}
+
+	/**
+	 * @return the state after reading the given code point in the given state or -1 if it can't be read
+	 */
+	public int next(int state, int codePoint) {
+		return this.next[state * this.classCount + this.classes.classOf( codePoint )];
+	}
+
+	/**
+	 * @return the state after reading any code point of the given {@link CodePointClasses class} in the given state
+	 * or -1 if it can't be read
+	 */
+	public int nextOfClass(int state, int classId) {
+		return this.next[state * this.classCount + classId];
+	}
+
+	/**
+	 * @return true if the given state has edges that read a code point
+	 */
+	public boolean reads(int state) {
+		return this.reads[state];
+	}
+
+	/**
+	 * @return true if SNK can be reached from the given state without reading anything
+	 */
+	public boolean accepts(int state) {
+		return this.accepts[state];
+	}
+
+	/**
+	 * @return true if every run in the given state ends with a match, no matter what it reads next.
+	 * As runs don't go back to an earlier accepting state, this is not the case for all accepting states
+	 */
+	public boolean surelyAccepts(int state) {
+		return this.surelyAccepts[state];
+	}
+
+	/**
+	 * @see FrozenEdgeGraph#isDead(int)
+	 */
+	public boolean isDead(int state) {
+		return this.dead[state];
+	}
+
+	/**
+	 * @see FrozenEdgeGraph#canReadMore(int)
+	 */
+	public boolean canReadMore(int state) {
+		return this.canReadMore[state];
+	}
+
+	/**
+	 * @return the number of states of this table, SRC is always 0
+	 */
+	public int getStateCount() {
+		return this.stateCount;
+	}
+
+	public FrozenEdgeGraph getEdges() {
+		return this.edges;
+	}
+
+	public CodePointClasses getCodePointClasses() {
+		return this.classes;
+	}
+
+	/**
+	 * @return the bit-parallel search over this table or null if it has more than {@link BitParallelSearch#MAX_STATES} states
+	 */
+	public BitParallelSearch getBitParallelSearch() {
+		return this.bitParallelSearch;
+	}
+
+	/**
+	 * @return the byte level version of this table (built on first use) or null if it would get too big
+	 */
+	public synchronized Utf8Dfa getUtf8Dfa() {
+		if ( !this.utf8DfaBuilt ) {
+			this.utf8Dfa = Utf8Dfa.of( this );
+			this.utf8DfaBuilt = true;
+		}
+		return this.utf8Dfa;
+	}
+
+}
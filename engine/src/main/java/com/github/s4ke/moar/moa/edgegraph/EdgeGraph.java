@@ -23,22 +23,22 @@
  */
 package com.github.s4ke.moar.moa.edgegraph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.github.s4ke.moar.NonDeterministicException;
-import com.github.s4ke.moar.moa.Moa;
 import com.github.s4ke.moar.moa.states.BasicState;
 import com.github.s4ke.moar.moa.states.BoundState;
-import com.github.s4ke.moar.moa.states.MatchInfo;
 import com.github.s4ke.moar.moa.states.SetState;
 import com.github.s4ke.moar.moa.states.State;
-import com.github.s4ke.moar.moa.states.Variable;
 import com.github.s4ke.moar.moa.states.VariableState;
 import com.github.s4ke.moar.strings.EfficientString;
 
@@ -77,8 +77,6 @@ public final class EdgeGraph {
 	private final Map<Integer, State> states = new HashMap<>();
 	private final Map<Integer, Set<Edge>> edges = new HashMap<>();
 	private final Map<Integer, Set<Edge>> setEdges = new HashMap<>();
-	private final Map<Integer, Set<Edge>> boundEdges = new HashMap<>();
-	private final Map<Integer, Map<EfficientString, Edge>> staticEdges = new HashMap<>();
 	private final Map<Integer, Set<Edge>> backRefOrEpsilonEdges = new HashMap<>();
 
 	private boolean frozen = false;
@@ -97,6 +95,95 @@ public final class EdgeGraph {
 		return edgeGraph;
 	}
 
+	/**
+	 * Builds a copy of this graph in which equivalent states are merged. Two states are
+	 * equivalent if they read the same thing (the same code point, set, bound or variable) and
+	 * their outgoing edges have the same memory actions and lead to equivalent states.
+	 * <p/>
+	 * Every class of equivalent states is represented by the state with the lowest idx
+	 * in it, so minimizing an already minimal graph doesn't change anything.
+	 */
+	public EdgeGraph minimize() {
+		List<State> states = new ArrayList<>( this.getStates() );
+		states.sort( (fst, snd) -> Integer.compare( fst.getIdx(), snd.getIdx() ) );
+
+		Map<Integer, Integer> classes = new HashMap<>();
+		int classCount;
+		{
+			Map<List<Object>, Integer> labels = new HashMap<>();
+			for ( State state : states ) {
+				Integer clazz = labels.computeIfAbsent( label( state ), key -> labels.size() );
+				classes.put( state.getIdx(), clazz );
+			}
+			classCount = labels.size();
+		}
+
+		//refine the classes until every class only contains states with the same edges
+		while ( true ) {
+			Map<List<Object>, Integer> signatures = new HashMap<>();
+			Map<Integer, Integer> refined = new HashMap<>();
+			for ( State state : states ) {
+				Set<List<Object>> edges = new HashSet<>();
+				for ( Edge edge : this.getEdges( state ) ) {
+					Set<List<Object>> actions = new HashSet<>();
+					for ( MemoryAction action : edge.memoryAction ) {
+						actions.add( Arrays.asList( action.actionType, action.variable ) );
+					}
+					edges.add( Arrays.asList( classes.get( edge.destination ), actions ) );
+				}
+				List<Object> signature = Arrays.asList( classes.get( state.getIdx() ), edges );
+				Integer clazz = signatures.computeIfAbsent( signature, key -> signatures.size() );
+				refined.put( state.getIdx(), clazz );
+			}
+			classes = refined;
+			if ( signatures.size() == classCount ) {
+				break;
+			}
+			classCount = signatures.size();
+		}
+
+		Map<Integer, State> representatives = new HashMap<>();
+		for ( State state : states ) {
+			representatives.putIfAbsent( classes.get( state.getIdx() ), state );
+		}
+
+		EdgeGraph edgeGraph = new EdgeGraph();
+		for ( State state : representatives.values() ) {
+			edgeGraph.addState( state );
+		}
+		for ( State state : representatives.values() ) {
+			for ( Edge edge : this.getEdges( state ) ) {
+				State destination = representatives.get( classes.get( edge.destination ) );
+				edgeGraph.addEdge( state, new Edge( new HashSet<>( edge.memoryAction ), destination ) );
+			}
+		}
+		return edgeGraph;
+	}
+
+	/**
+	 * @return a key that is equal for two states iff they read the same thing
+	 */
+	private static List<Object> label(State state) {
+		if ( state == SRC || state == SNK ) {
+			return Arrays.asList( "special", state.getIdx() );
+		}
+		else if ( state.isStatic() ) {
+			return Arrays.asList( "static", ((BasicState) state).getToken(), state.getMinCount(), state.getMaxCount() );
+		}
+		else if ( state.isSet() ) {
+			SetState setState = (SetState) state;
+			return Arrays.asList( "set", setState.length, setState.criterion, state.getMinCount(), state.getMaxCount() );
+		}
+		else if ( state.isBound() ) {
+			BoundState boundState = (BoundState) state;
+			return Arrays.asList( "bound", boundState.getBoundHandled(), boundState.getCondition() );
+		}
+		else if ( state.isVariable() ) {
+			return Arrays.asList( "variable", ((VariableState) state).getVariableName() );
+		}
+		throw new AssertionError( "unknown state type: " + state );
+	}
+
 	public void freeze() {
 		this.frozen = true;
 		for ( Map.Entry<Integer, Set<Edge>> entry : this.edges.entrySet() ) {
@@ -174,92 +261,12 @@ public final class EdgeGraph {
 		}
 	}
 
-	public Edge getEdge(State from, MatchInfo matchInfo, Map<String, Variable> variables) {
-		if ( this.boundEdges.get( from.getIdx() ).size() >= 1 ) {
-			if ( this.boundEdges.get( from.getIdx() ).size() > 1 ) {
-				throw new NonDeterministicException( "multiple boundEdges found in graph" );
-			}
-			else {
-				Edge edge = this.boundEdges.get( from.getIdx() ).iterator().next();
-				BoundState state = (BoundState) this.states.get( edge.destination );
-				if ( state.canConsume( matchInfo ) ) {
-					return edge;
-				}
-			}
-		}
-
-		{
-			Map<EfficientString, Edge> staticEdges = this.staticEdges.get( from.getIdx() );
-			if ( staticEdges != null ) {
-				Edge edge = staticEdges.get( matchInfo.getString() );
-				if ( edge != null ) {
-					return edge;
-				}
-			}
-		}
-
-		{
-			Set<Edge> setEdges = this.setEdges.get( from.getIdx() );
-			if ( setEdges != null ) {
-				for ( Edge edge : setEdges ) {
-					State state = this.states.get( edge.destination );
-					if ( state.isSet() && state.canConsume( matchInfo.getString() ) ) {
-						return edge;
-					}
-				}
-			}
-		}
-
-		Set<Edge> set = this.edges.get( from.getIdx() );
-		if ( set == null ) {
-			return null;
-		}
-
-		//this is only reached for the case that we
-		//are in a state with a backreference
-		//in this case we have at most 2 edges (the backref or possibly epsilon)
-		//so this doesn't change the overall runtime
-		Edge edgeRes = null;
-		for ( Edge edge : this.backRefOrEpsilonEdges.get( from.getIdx() ) ) {
-			State state = this.states.get( edge.destination );
-			if ( state.isVariable() && state.getEdgeString( variables ).equalTo( matchInfo.getString() ) ) {
-				if ( edgeRes != null ) {
-					throw new IllegalStateException(
-							"non-determinism detected, multiple edges for string: " + matchInfo.getString() + ". The edges were: " + set
-					);
-				}
-				edgeRes = edge;
-			}
-		}
-		return edgeRes;
-	}
-
 	public enum StepResult {
 		CONSUMED,
 		NOT_CONSUMED,
 		REJECTED
 	}
 
-	public StepResult step(CurStateHolder stateHolder, MatchInfo mi, Map<String, Variable> vars) {
-		{
-			EdgeGraph.Edge edge = this.getEdge( stateHolder.getState(), mi, vars );
-			if ( edge != null ) {
-				State destinationState = this.states.get( edge.destination );
-				edge.memoryAction.forEach( memoryAction -> memoryAction.act( vars ) );
-				//we have found an edge so we can accept this input
-				vars.values().stream().filter( Variable::canConsume ).forEach(
-						var -> var.consume( mi.getString() )
-				);
-				stateHolder.setState( destinationState );
-				if ( destinationState.isBound() ) {
-					return StepResult.NOT_CONSUMED;
-				}
-				return StepResult.CONSUMED;
-			}
-		}
-		return StepResult.REJECTED;
-	}
-
 	/**
 	 * checks determinism in a single state
 	 */
@@ -371,6 +378,29 @@ public final class EdgeGraph {
 			}
 		}
 
+		//a counted state reads its own code point (or set) again without an edge. If it is
+		//allowed to leave before it has to stop doing so, this is just like an edge to itself
+		if ( state.isCounted() && state.getMinCount() != state.getMaxCount() ) {
+			for ( Edge edge : edges ) {
+				State destinationState = this.states.get( edge.destination );
+				if ( destinationState.isStatic() && destinationState != SNK ) {
+					if ( state.isStatic() ?
+							state.getEdgeString( null ).equals( destinationState.getEdgeString( null ) ) :
+							state.canConsume( destinationState.getEdgeString( null ) ) ) {
+						return false;
+					}
+				}
+				else if ( destinationState.isSet() ) {
+					if ( state.isStatic() ?
+							destinationState.canConsume( state.getEdgeString( null ) ) :
+							((SetState) state).criterion.intersects( ((SetState) destinationState).criterion ) ) {
+						return false;
+					}
+				}
+			}
+			++staticOrSetCount;
+		}
+
 		//Bound edges are only allowed
 		//at the beginning or the end
 		//
@@ -426,75 +456,6 @@ public final class EdgeGraph {
 		return true;
 	}
 
-	public int maximalNextTokenLength(CurStateHolder stateHolder, Map<String, Variable> vars) {
-		int maxLen = -1;
-
-		if ( this.boundEdges.get( stateHolder.getState().getIdx() ).size() > 0 ) {
-			maxLen = 0;
-		}
-
-		{
-			//we assume all of the outgoing edges to be of equal length for
-			//the static edges (via construction these are always of length 1)
-			Map<EfficientString, Edge> staticEdges = this.staticEdges.get( stateHolder.getState().getIdx() );
-			if ( staticEdges != null ) {
-				for ( Map.Entry<EfficientString, Edge> entry : staticEdges.entrySet() ) {
-					Edge edge = entry.getValue();
-					if ( edge.destination == Moa.SNK.getIdx() ) {
-						//ignore the SNK, there might be a backreference edge as well
-						//SNK gets handled together with this
-						//ignoring this here doesn't change the asymptotic
-						//runtime
-						continue;
-					}
-					State state = this.states.get( edge.destination );
-					assert state.getEdgeString( vars ).codePointLength() <= 1;
-					maxLen = Math.max( maxLen, state.getEdgeString( vars ).codePointLength() );
-					if ( maxLen > 0 ) {
-						return maxLen;
-					}
-				}
-			}
-		}
-
-		{
-			Set<Edge> setEdges = this.setEdges.get( stateHolder.getState().getIdx() );
-			if ( setEdges != null ) {
-				for ( Edge edge : setEdges ) {
-					if ( edge.destination == Moa.SNK.getIdx() || edge.destination == Moa.SRC.getIdx() ) {
-						//destination is never SRC or SNK :)
-						throw new AssertionError();
-					}
-					State state = this.states.get( edge.destination );
-					assert ((SetState) state).length <= 1;
-					maxLen = Math.max( maxLen, ((SetState) state).length );
-					if ( maxLen > 0 ) {
-						return maxLen;
-					}
-				}
-			}
-		}
-
-		if ( maxLen != -1 ) {
-			return maxLen;
-		}
-		else {
-			maxLen = 0;
-		}
-
-		//fallback to "bruteforce", but this is only needed
-		//in case we find a backreference
-		//in which case there are at most 2 edges (=> O(n))
-		assert this.edges.get( stateHolder.getState().getIdx() ).size() <= 2;
-		{
-			for ( Edge edge : this.edges.get( stateHolder.getState().getIdx() ) ) {
-				State otherEnd = this.states.get( edge.destination );
-				maxLen = Math.max( maxLen, otherEnd.getEdgeString( vars ).codePointLength() );
-			}
-		}
-		return maxLen;
-	}
-
 	public Set<Edge> getEdges(State state) {
 		if ( !this.edges.containsKey( state.getIdx() ) ) {
 			return Collections.emptySet();
@@ -536,17 +497,10 @@ public final class EdgeGraph {
 		{
 			State state = this.states.get( edge.destination );
 			Integer src = from.getIdx();
-			if ( state.isStatic() ) {
-				//only called for terminals so null is fine
-				this.staticEdges.get( src ).put( state.getEdgeString( null ), edge );
-			}
-			else if ( state.isSet() ) {
+			if ( state.isSet() ) {
 				this.setEdges.get( src ).add( edge );
 			}
-			else if ( state.isBound() ) {
-				this.boundEdges.get( src ).add( edge );
-			}
-			else {
+			else if ( !state.isStatic() && !state.isBound() ) {
 				this.backRefOrEpsilonEdges.get( src ).add( edge );
 			}
 		}
@@ -560,9 +514,7 @@ public final class EdgeGraph {
 		}
 		this.states.put( state.getIdx(), state );
 		this.edges.put( state.getIdx(), new HashSet<>() );
-		this.staticEdges.computeIfAbsent( state.getIdx(), key -> new HashMap<>() );
 		this.setEdges.computeIfAbsent( state.getIdx(), key -> new HashSet<>() );
-		this.boundEdges.computeIfAbsent( state.getIdx(), key -> new HashSet<>() );
 		this.backRefOrEpsilonEdges.computeIfAbsent(
 				state.getIdx(),
 				key -> new HashSet<>()
@@ -589,13 +541,7 @@ public final class EdgeGraph {
 		if ( edges != null ? !edges.equals( edgeGraph.edges ) : edgeGraph.edges != null ) {
 			return false;
 		}
-		if ( setEdges != null ? !setEdges.equals( edgeGraph.setEdges ) : edgeGraph.setEdges != null ) {
-			return false;
-		}
-		if ( boundEdges != null ? !boundEdges.equals( edgeGraph.boundEdges ) : edgeGraph.boundEdges != null ) {
-			return false;
-		}
-		return !(staticEdges != null ? !staticEdges.equals( edgeGraph.staticEdges ) : edgeGraph.staticEdges != null);
+		return !(setEdges != null ? !setEdges.equals( edgeGraph.setEdges ) : edgeGraph.setEdges != null);
 
 	}
 
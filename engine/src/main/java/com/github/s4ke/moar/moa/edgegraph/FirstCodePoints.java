@@ -0,0 +1,140 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa.edgegraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.github.s4ke.moar.strings.CodePointSet;
+import com.github.s4ke.moar.util.CaseFolding;
+import com.github.s4ke.moar.util.CharSeq;
+
+/**
+ * The set of code points a match of a {@link FrozenEdgeGraph} can start with. These are the
+ * code points read by the static and set edges leaving SRC (or leaving the bound states
+ * that can be reached from SRC without reading anything).
+ * <p/>
+ * Code points in the BMP are stored in a bitmap, the others are checked against the
+ * original static code points and {@link CodePointSet}s. For case-insensitive graphs the upper case
+ * variants of the static code points are added as well.
+ *
+ * @author Martin Braun
+ */
+public final class FirstCodePoints {
+
+	private static final int BMP_SIZE = Character.MAX_VALUE + 1;
+
+	private final long[] bmp;
+	private final int[] supplementaryCodePoints;
+	private final CodePointSet[] supplementarySets;
+
+	private FirstCodePoints(long[] bmp, int[] supplementaryCodePoints, CodePointSet[] supplementarySets) {
+		this.bmp = bmp;
+		this.supplementaryCodePoints = supplementaryCodePoints;
+		this.supplementarySets = supplementarySets;
+	}
+
+	/**
+	 * @return the code points a match of the given graph can start with or null if a match
+	 * can start with any code point (or be empty)
+	 */
+	public static FirstCodePoints of(FrozenEdgeGraph edges) {
+		BitSet bmp = new BitSet( BMP_SIZE );
+		List<Integer> supplementaryCodePoints = new ArrayList<>();
+		List<CodePointSet> supplementarySets = new ArrayList<>();
+
+		//SRC and all bound states reachable from it without reading anything
+		BitSet visited = new BitSet( edges.getStateCount() );
+		int state = FrozenEdgeGraph.SRC;
+		while ( state != -1 && !visited.get( state ) ) {
+			visited.set( state );
+			if ( edges.getEpsilonEdge( state ) != -1 || edges.getVariableEdge( state ) != -1 ) {
+				//we either match the empty String or a backreference that might be empty
+				return null;
+			}
+			for ( int edge = edges.getEdgeStart( state ); edge < edges.getStaticEdgeEnd( state ); ++edge ) {
+				int codePoint = edges.getCodePoint( edges.getDestination( edge ) );
+				int upperCase = CaseFolding.upperCaseVariant( codePoint );
+				if ( edges.isCaseInsensitive() && upperCase != -1 ) {
+					bmp.set( upperCase );
+				}
+				if ( codePoint < BMP_SIZE ) {
+					bmp.set( codePoint );
+				}
+				else {
+					supplementaryCodePoints.add( codePoint );
+				}
+			}
+			for ( int edge = edges.getStaticEdgeEnd( state ); edge < edges.getSetEdgeEnd( state ); ++edge ) {
+				CodePointSet set = edges.getSet( edges.getDestination( edge ) );
+				set.addTo( bmp, BMP_SIZE );
+				supplementarySets.add( set );
+			}
+			int boundEdge = edges.getBoundEdge( state );
+			state = boundEdge != -1 ? edges.getDestination( boundEdge ) : -1;
+		}
+
+		int[] codePoints = new int[supplementaryCodePoints.size()];
+		for ( int i = 0; i < codePoints.length; ++i ) {
+			codePoints[i] = supplementaryCodePoints.get( i );
+		}
+		Arrays.sort( codePoints );
+		return new FirstCodePoints(
+				Arrays.copyOf( bmp.toLongArray(), BMP_SIZE / Long.SIZE ),
+				codePoints,
+				supplementarySets.toArray( new CodePointSet[supplementarySets.size()] )
+		);
+	}
+
+	public boolean contains(int codePoint) {
+		if ( codePoint < BMP_SIZE ) {
+			return (this.bmp[codePoint >>> 6] & (1L << codePoint)) != 0;
+		}
+		if ( Arrays.binarySearch( this.supplementaryCodePoints, codePoint ) >= 0 ) {
+			return true;
+		}
+		for ( CodePointSet set : this.supplementarySets ) {
+			if ( set.intersects( codePoint ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the first position at or after the given one where a match could start or -1 if there is none
+	 */
+	public int indexOf(CharSeq str, int from) {
+		int length = str.codePointLength();
+		for ( int pos = from; pos < length; ++pos ) {
+			if ( this.contains( str.codePoint( pos ) ) ) {
+				return pos;
+			}
+		}
+		return -1;
+	}
+
+}
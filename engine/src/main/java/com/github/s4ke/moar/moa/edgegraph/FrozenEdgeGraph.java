@@ -0,0 +1,1176 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa.edgegraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.github.s4ke.moar.moa.states.BasicState;
+import com.github.s4ke.moar.moa.states.BoundCondition;
+import com.github.s4ke.moar.moa.states.BoundState;
+import com.github.s4ke.moar.moa.states.MatchInfo;
+import com.github.s4ke.moar.moa.states.SetState;
+import com.github.s4ke.moar.moa.states.State;
+import com.github.s4ke.moar.moa.states.Variable;
+import com.github.s4ke.moar.moa.states.VariableSlots;
+import com.github.s4ke.moar.moa.states.VariableState;
+import com.github.s4ke.moar.strings.CodePointSet;
+import com.github.s4ke.moar.strings.EfficientString;
+import com.github.s4ke.moar.util.CaseFolding;
+
+/**
+ * Compact, read-only execution form of a frozen {@link EdgeGraph}.
+ * <p/>
+ * States are renumbered densely ({@link #SRC} is always 0, {@link #SNK} is always 1)
+ * and all edges are stored in flat primitive arrays. The outgoing edges of a state
+ * are stored consecutively: first the static edges (sorted by their code point), then the
+ * set edges. The (at most one) bound, epsilon and variable edge of every state
+ * are stored separately. The memory actions of every edge are compiled into
+ * OPEN, CLOSE and RESET bitmasks over the variable indices.
+ * <p/>
+ * {@link State#isCounted() Counted} states read their code point (or set) again without an edge,
+ * so a run in such a state also has to know how often it has read it in a row (its count,
+ * 1 right after entering the state). Where a single number per run is needed, the state and
+ * the count are combined into a run state (see {@link #getRunState(int, int)}).
+ * <p/>
+ * For every state with static or set edges a dense table of the edges taken
+ * for the Latin-1 code points is precomputed as well, so the common case of
+ * reading such a code point is a single array load. All other code points
+ * fall back to a binary search over the static edges and a scan of the set edges.
+ * <p/>
+ * In a case-insensitive graph the static states and sets are expected to be folded with {@link CaseFolding}
+ * already (as done by the parser), every code point of the input is folded before it is looked up
+ * and backreferences are compared ignoring case.
+ *
+ * @author Martin Braun
+ */
+public final class FrozenEdgeGraph {
+
+	public static final int SRC = 0;
+	public static final int SNK = 1;
+
+	public static final byte STATIC = 0;
+	public static final byte SET = 1;
+	public static final byte BOUND = 2;
+	public static final byte VARIABLE = 3;
+
+	/**
+	 * SNK can't be reached without reading anything
+	 */
+	public static final byte EMPTY_REJECT = 0;
+	/**
+	 * SNK is reached by taking the epsilon edge, no matter where in the input we are
+	 */
+	public static final byte EMPTY_ACCEPT = 1;
+	/**
+	 * SNK might be reached through bound or variable states, this depends on the input
+	 */
+	public static final byte EMPTY_CONDITIONAL = 2;
+
+	/**
+	 * SNK can't be reached anymore, no matter what input follows
+	 */
+	public static final byte DEAD = 0;
+	/**
+	 * SNK can be reached, but only by reading a back reference
+	 */
+	public static final byte LIVE_THROUGH_VARIABLE = 1;
+	/**
+	 * SNK can be reached without reading a back reference
+	 */
+	public static final byte LIVE = 2;
+
+	/**
+	 * a match can start anywhere
+	 */
+	public static final byte ANCHOR_NONE = 0;
+	/**
+	 * a match can only start where {@code ^} matches
+	 */
+	public static final byte ANCHOR_LINE_START = 1;
+	/**
+	 * a match can only start where {@code \G} matches, i.e. at the end of the last match
+	 */
+	public static final byte ANCHOR_LAST_MATCH = 2;
+
+	/**
+	 * there is no upper bound for the length of a match
+	 */
+	public static final int UNBOUNDED = -1;
+
+	/**
+	 * graphs that need more run states than this (because of big counts) don't number them
+	 */
+	public static final int MAX_RUN_STATES = 1 << 16;
+
+	private static final int VARIABLE_TOKEN_LENGTH = -1;
+
+	private static final int LATIN_1_SIZE = 256;
+
+	private final int stateCount;
+	private final int[] originalIdx;
+	private final byte[] kind;
+	private final int[] codePoint;
+	private final CodePointSet[] set;
+	private final BoundState[] bound;
+	private final int[] variableOf;
+	private final int[] minCount;
+	private final int[] maxCount;
+
+	private final int[] edgeStart;
+	private final int[] staticEnd;
+	private final int[] setEnd;
+	private final int[] boundEdge;
+	private final int[] epsilonEdge;
+	private final int[] variableEdge;
+	private final byte[] tokenLength;
+	private final byte[] emptyAcceptance;
+	private final byte[] liveness;
+	private final int[] latin1Offset;
+	private final int[] latin1Edge;
+
+	private final int[] edgeLabel;
+	private final int[] edgeDestination;
+	private final int maskWords;
+	private final long[] openMask;
+	private final long[] closeMask;
+	private final long[] resetMask;
+	private final boolean[] hasActions;
+	//the variables that are read by a VARIABLE state and the edges that have actions for them
+	private final long[] referencedMask;
+	private final boolean[] hasReferencedActions;
+
+	//the first run state of every counted state for the counts from 2 on, -1 for all others
+	private final int[] runStateOffset;
+	private final int runStateCount;
+	private final int[] stateOfRunState;
+	private final int[] countOfRunState;
+
+	private final String[] variableNames;
+	private final Map<String, Integer> variableIndices;
+	private final Map<Integer, Integer> variableIndicesByOccurence;
+
+	private final boolean caseInsensitive;
+	private final boolean hasBackReferences;
+	private final byte startAnchor;
+	private final boolean anchoredAtEndOfInput;
+	private final int minMatchLength;
+	private final int maxMatchLength;
+	private final RequiredLiteral requiredLiteral;
+	private final FirstCodePoints firstCodePoints;
+	private final LiteralRuns literalRuns;
+	private final CodePointClasses codePointClasses;
+	private final Dfa dfa;
+
+	public FrozenEdgeGraph(EdgeGraph edgeGraph, Map<String, Variable> variables) {
+		this( edgeGraph, variables, false );
+	}
+
+	public FrozenEdgeGraph(EdgeGraph edgeGraph, Map<String, Variable> variables, boolean caseInsensitive) {
+		this.caseInsensitive = caseInsensitive;
+		{
+			List<Variable> sortedVariables = new ArrayList<>( variables.values() );
+			sortedVariables.sort(
+					(fst, snd) -> fst.getOccurenceInRegex() != snd.getOccurenceInRegex() ?
+							Integer.compare( fst.getOccurenceInRegex(), snd.getOccurenceInRegex() ) :
+							fst.getName().compareTo( snd.getName() )
+			);
+			this.variableNames = new String[sortedVariables.size()];
+			Map<String, Integer> variableIndices = new HashMap<>();
+			Map<Integer, Integer> variableIndicesByOccurence = new HashMap<>();
+			for ( int i = 0; i < this.variableNames.length; ++i ) {
+				Variable var = sortedVariables.get( i );
+				this.variableNames[i] = var.getName();
+				variableIndices.put( var.getName(), i );
+				variableIndicesByOccurence.put( var.getOccurenceInRegex(), i );
+			}
+			this.variableIndices = Collections.unmodifiableMap( variableIndices );
+			this.variableIndicesByOccurence = Collections.unmodifiableMap( variableIndicesByOccurence );
+		}
+
+		//SRC and SNK keep their well known ids, the rest is numbered densely.
+		//states that can't be reached from SRC are never visited, so they are left out
+		State[] states;
+		Map<Integer, Integer> ids = new HashMap<>();
+		{
+			if ( edgeGraph.getState( EdgeGraph.SRC.getIdx() ) == null || edgeGraph.getState( EdgeGraph.SNK.getIdx() ) == null ) {
+				throw new IllegalArgumentException( "the EdgeGraph has to contain both SRC and SNK" );
+			}
+			Set<Integer> reachable = new HashSet<>();
+			reachable.add( EdgeGraph.SRC.getIdx() );
+			reachable.add( EdgeGraph.SNK.getIdx() );
+			Deque<Integer> toVisit = new ArrayDeque<>();
+			toVisit.push( EdgeGraph.SRC.getIdx() );
+			while ( !toVisit.isEmpty() ) {
+				for ( EdgeGraph.Edge cur : edgeGraph.getEdges( edgeGraph.getState( toVisit.pop() ) ) ) {
+					if ( reachable.add( cur.destination ) ) {
+						toVisit.push( cur.destination );
+					}
+				}
+			}
+			states = new State[reachable.size()];
+			int[] idxs = new int[states.length];
+			int i = 0;
+			for ( Integer idx : reachable ) {
+				idxs[i++] = idx;
+			}
+			Arrays.sort( idxs );
+			for ( i = 0; i < idxs.length; ++i ) {
+				states[i] = edgeGraph.getState( idxs[i] );
+				ids.put( idxs[i], i );
+			}
+			if ( ids.get( EdgeGraph.SRC.getIdx() ) != SRC || ids.get( EdgeGraph.SNK.getIdx() ) != SNK ) {
+				throw new AssertionError( "SRC and SNK must have the lowest indices" );
+			}
+		}
+
+		this.stateCount = states.length;
+		this.originalIdx = new int[this.stateCount];
+		this.kind = new byte[this.stateCount];
+		this.codePoint = new int[this.stateCount];
+		this.set = new CodePointSet[this.stateCount];
+		this.bound = new BoundState[this.stateCount];
+		this.variableOf = new int[this.stateCount];
+		this.minCount = new int[this.stateCount];
+		this.maxCount = new int[this.stateCount];
+		Arrays.fill( this.codePoint, -1 );
+		Arrays.fill( this.variableOf, -1 );
+		for ( int i = 0; i < this.stateCount; ++i ) {
+			State state = states[i];
+			this.originalIdx[i] = state.getIdx();
+			this.minCount[i] = state.getMinCount();
+			this.maxCount[i] = state.getMaxCount();
+			if ( state.isCounted() && !state.isStatic() && !state.isSet() ) {
+				throw new AssertionError( "only static and set states can be counted, found: " + state );
+			}
+			if ( state.isStatic() ) {
+				this.kind[i] = STATIC;
+				if ( i != SRC && i != SNK ) {
+					EfficientString token = ((BasicState) state).getToken();
+					if ( token.codePointLength() != 1 ) {
+						throw new AssertionError( "static states are expected to have a token of length 1, found: " + token );
+					}
+					this.codePoint[i] = token.codePoint( 0 );
+				}
+			}
+			else if ( state.isSet() ) {
+				SetState setState = (SetState) state;
+				if ( setState.length != 1 ) {
+					throw new AssertionError( "set states are expected to have a length of 1" );
+				}
+				this.kind[i] = SET;
+				this.set[i] = setState.criterion;
+			}
+			else if ( state.isBound() ) {
+				this.kind[i] = BOUND;
+				this.bound[i] = (BoundState) state;
+			}
+			else if ( state.isVariable() ) {
+				this.kind[i] = VARIABLE;
+				Integer varIdx = this.variableIndices.get( ((VariableState) state).getVariableName() );
+				if ( varIdx == null ) {
+					throw new AssertionError( "variable with name " + ((VariableState) state).getVariableName() + " not found" );
+				}
+				this.variableOf[i] = varIdx;
+			}
+			else {
+				throw new AssertionError( "unknown state type: " + state );
+			}
+		}
+
+		this.edgeStart = new int[this.stateCount + 1];
+		this.staticEnd = new int[this.stateCount];
+		this.setEnd = new int[this.stateCount];
+		this.boundEdge = new int[this.stateCount];
+		this.epsilonEdge = new int[this.stateCount];
+		this.variableEdge = new int[this.stateCount];
+		this.tokenLength = new byte[this.stateCount];
+		Arrays.fill( this.boundEdge, -1 );
+		Arrays.fill( this.epsilonEdge, -1 );
+		Arrays.fill( this.variableEdge, -1 );
+
+		int edgeCount = 0;
+		for ( State state : states ) {
+			edgeCount += edgeGraph.getEdges( state ).size();
+		}
+		this.edgeLabel = new int[edgeCount];
+		this.edgeDestination = new int[edgeCount];
+		this.maskWords = VariableSlots.words( this.variableNames.length );
+		this.openMask = new long[edgeCount * this.maskWords];
+		this.closeMask = new long[edgeCount * this.maskWords];
+		this.resetMask = new long[edgeCount * this.maskWords];
+		this.hasActions = new boolean[edgeCount];
+
+		int edge = 0;
+		for ( int i = 0; i < this.stateCount; ++i ) {
+			List<EdgeGraph.Edge> staticEdges = new ArrayList<>();
+			List<EdgeGraph.Edge> setEdges = new ArrayList<>();
+			List<EdgeGraph.Edge> otherEdges = new ArrayList<>();
+			for ( EdgeGraph.Edge cur : edgeGraph.getEdges( states[i] ) ) {
+				int destination = ids.get( cur.destination );
+				if ( destination != SNK && this.kind[destination] == STATIC ) {
+					staticEdges.add( cur );
+				}
+				else if ( this.kind[destination] == SET ) {
+					setEdges.add( cur );
+				}
+				else {
+					otherEdges.add( cur );
+				}
+			}
+			staticEdges.sort( (fst, snd) -> Integer.compare(
+					this.codePoint[ids.get( fst.destination )],
+					this.codePoint[ids.get( snd.destination )]
+			) );
+
+			this.edgeStart[i] = edge;
+			for ( EdgeGraph.Edge cur : staticEdges ) {
+				edge = this.addEdge( edge, cur, ids );
+			}
+			this.staticEnd[i] = edge;
+			for ( EdgeGraph.Edge cur : setEdges ) {
+				edge = this.addEdge( edge, cur, ids );
+			}
+			this.setEnd[i] = edge;
+			for ( EdgeGraph.Edge cur : otherEdges ) {
+				int destination = ids.get( cur.destination );
+				int[] target;
+				if ( destination == SNK ) {
+					target = this.epsilonEdge;
+				}
+				else if ( this.kind[destination] == BOUND ) {
+					target = this.boundEdge;
+				}
+				else {
+					target = this.variableEdge;
+				}
+				if ( target[i] != -1 ) {
+					throw new AssertionError( "multiple edges of the same kind found for state " + states[i] );
+				}
+				target[i] = edge;
+				edge = this.addEdge( edge, cur, ids );
+			}
+
+			if ( this.setEnd[i] > this.edgeStart[i] ) {
+				this.tokenLength[i] = 1;
+			}
+			else if ( this.variableEdge[i] != -1 && this.boundEdge[i] == -1 ) {
+				this.tokenLength[i] = VARIABLE_TOKEN_LENGTH;
+			}
+			else {
+				this.tokenLength[i] = 0;
+			}
+		}
+		this.edgeStart[this.stateCount] = edge;
+
+		this.latin1Offset = new int[this.stateCount];
+		Arrays.fill( this.latin1Offset, -1 );
+		int latin1States = 0;
+		for ( int i = 0; i < this.stateCount; ++i ) {
+			if ( this.setEnd[i] > this.edgeStart[i] ) {
+				this.latin1Offset[i] = latin1States++ * LATIN_1_SIZE;
+			}
+		}
+		this.latin1Edge = new int[latin1States * LATIN_1_SIZE];
+		for ( int i = 0; i < this.stateCount; ++i ) {
+			int offset = this.latin1Offset[i];
+			if ( offset != -1 ) {
+				for ( int cp = 0; cp < LATIN_1_SIZE; ++cp ) {
+					this.latin1Edge[offset + cp] = this.getStaticOrSetEdge( i, cp );
+				}
+			}
+		}
+
+		{
+			//run states 0 to stateCount - 1 are the states themselves with a count of 1
+			this.runStateOffset = new int[this.stateCount];
+			Arrays.fill( this.runStateOffset, -1 );
+			long runStateCount = this.stateCount;
+			for ( int i = 0; i < this.stateCount; ++i ) {
+				int distinctCounts = this.distinctCounts( i );
+				if ( distinctCounts > 1 ) {
+					this.runStateOffset[i] = (int) runStateCount;
+					runStateCount += distinctCounts - 1;
+				}
+			}
+			if ( runStateCount <= MAX_RUN_STATES ) {
+				this.runStateCount = (int) runStateCount;
+				this.stateOfRunState = new int[this.runStateCount];
+				this.countOfRunState = new int[this.runStateCount];
+				for ( int i = 0; i < this.stateCount; ++i ) {
+					this.stateOfRunState[i] = i;
+					this.countOfRunState[i] = 1;
+					for ( int count = 2; count <= this.distinctCounts( i ); ++count ) {
+						int runState = this.getRunState( i, count );
+						this.stateOfRunState[runState] = i;
+						this.countOfRunState[runState] = count;
+					}
+				}
+			}
+			else {
+				this.runStateCount = -1;
+				this.stateOfRunState = null;
+				this.countOfRunState = null;
+			}
+		}
+
+		this.emptyAcceptance = this.computeEmptyAcceptance();
+		this.liveness = this.computeLiveness();
+
+		{
+			boolean hasBackReferences = false;
+			for ( int i = 0; i < this.stateCount; ++i ) {
+				hasBackReferences |= this.kind[i] == VARIABLE;
+			}
+			this.hasBackReferences = hasBackReferences;
+		}
+		{
+			this.referencedMask = new long[this.maskWords];
+			for ( int i = 0; i < this.stateCount; ++i ) {
+				if ( this.kind[i] == VARIABLE ) {
+					this.referencedMask[this.variableOf[i] >>> 6] |= 1L << this.variableOf[i];
+				}
+			}
+			this.hasReferencedActions = new boolean[edgeCount];
+			for ( int i = 0; i < edgeCount; ++i ) {
+				for ( int word = 0; word < this.maskWords; ++word ) {
+					int offset = i * this.maskWords + word;
+					long actions = this.openMask[offset] | this.closeMask[offset] | this.resetMask[offset];
+					this.hasReferencedActions[i] |= (actions & this.referencedMask[word]) != 0;
+				}
+			}
+		}
+		this.startAnchor = this.computeStartAnchor();
+		this.anchoredAtEndOfInput = this.computeAnchoredAtEndOfInput();
+		this.minMatchLength = this.computeMinMatchLength();
+		this.maxMatchLength = this.computeMaxMatchLength();
+		this.requiredLiteral = RequiredLiteral.of( this );
+		this.firstCodePoints = FirstCodePoints.of( this );
+		this.literalRuns = LiteralRuns.of( this );
+		this.codePointClasses = CodePointClasses.of( this );
+		this.dfa = Dfa.of( this );
+	}
+
+	/**
+	 * finds out for every state whether SNK can be reached by only reading the empty String,
+	 * i.e. through epsilon, bound and (possibly empty) variable edges
+	 */
+	private byte[] computeEmptyAcceptance() {
+		boolean[] reachesSnk = new boolean[this.stateCount];
+		reachesSnk[SNK] = true;
+		boolean changed = true;
+		while ( changed ) {
+			changed = false;
+			for ( int i = 0; i < this.stateCount; ++i ) {
+				if ( !reachesSnk[i] && (this.epsilonEdge[i] != -1 ||
+						this.reachesSnk( this.boundEdge[i], reachesSnk ) ||
+						this.reachesSnk( this.variableEdge[i], reachesSnk )) ) {
+					reachesSnk[i] = true;
+					changed = true;
+				}
+			}
+		}
+
+		byte[] ret = new byte[this.stateCount];
+		for ( int i = 0; i < this.stateCount; ++i ) {
+			if ( !reachesSnk[i] ) {
+				ret[i] = EMPTY_REJECT;
+			}
+			else if ( this.boundEdge[i] == -1 && this.epsilonEdge[i] != -1 ) {
+				//the epsilon edge is preferred over the variable edge for the empty String
+				ret[i] = EMPTY_ACCEPT;
+			}
+			else {
+				ret[i] = EMPTY_CONDITIONAL;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * finds out for every state whether SNK can still be reached by reading more input
+	 * and whether this is only possible through a back reference
+	 */
+	private byte[] computeLiveness() {
+		boolean[] live = this.coReachable( false );
+		boolean[] liveWithoutVariables = this.coReachable( true );
+		byte[] ret = new byte[this.stateCount];
+		for ( int i = 0; i < this.stateCount; ++i ) {
+			if ( !live[i] ) {
+				ret[i] = DEAD;
+			}
+			else if ( !liveWithoutVariables[i] ) {
+				ret[i] = LIVE_THROUGH_VARIABLE;
+			}
+			else {
+				ret[i] = LIVE;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return for every state whether SNK can be reached from it through any edges
+	 */
+	private boolean[] coReachable(boolean withoutVariables) {
+		boolean[] ret = new boolean[this.stateCount];
+		ret[SNK] = true;
+		boolean changed = true;
+		while ( changed ) {
+			changed = false;
+			for ( int i = 0; i < this.stateCount; ++i ) {
+				if ( ret[i] || (withoutVariables && this.kind[i] == VARIABLE) ) {
+					continue;
+				}
+				for ( int edge = this.edgeStart[i]; edge < this.edgeStart[i + 1]; ++edge ) {
+					if ( ret[this.edgeDestination[edge]] ) {
+						ret[i] = true;
+						changed = true;
+						break;
+					}
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * SRC is anchored if all it can do is to check a single bound
+	 */
+	private byte computeStartAnchor() {
+		int edge = this.boundEdge[SRC];
+		if ( edge == -1 || this.setEnd[SRC] > this.edgeStart[SRC] ||
+				this.epsilonEdge[SRC] != -1 || this.variableEdge[SRC] != -1 ) {
+			return ANCHOR_NONE;
+		}
+		Function<MatchInfo, Boolean> condition = this.bound[this.edgeDestination[edge]].getCondition();
+		if ( condition == BoundCondition.START_OF_LINE ) {
+			return ANCHOR_LINE_START;
+		}
+		if ( condition == BoundCondition.END_OF_LAST_MATCH ) {
+			return ANCHOR_LAST_MATCH;
+		}
+		return ANCHOR_NONE;
+	}
+
+	/**
+	 * SNK can only be entered by the epsilon edges, so every match ends at the end of
+	 * the input if all of these leave {@code \z} bound states
+	 */
+	private boolean computeAnchoredAtEndOfInput() {
+		boolean anyEpsilon = false;
+		for ( int i = 0; i < this.stateCount; ++i ) {
+			if ( this.epsilonEdge[i] != -1 ) {
+				if ( this.kind[i] != BOUND || this.bound[i].getCondition() != BoundCondition.END_OF_INPUT ) {
+					return false;
+				}
+				anyEpsilon = true;
+			}
+		}
+		return anyEpsilon;
+	}
+
+	/**
+	 * @return the number of code points on the shortest path from SRC to SNK, backreferences
+	 * are assumed to be empty. 0 if SNK can't be reached at all
+	 */
+	private int computeMinMatchLength() {
+		//0-1 BFS (with a little correction for counted states), only static and set states read a code point
+		int[] shortest = new int[this.stateCount];
+		Arrays.fill( shortest, Integer.MAX_VALUE );
+		shortest[SRC] = 0;
+		Deque<Integer> toVisit = new ArrayDeque<>();
+		toVisit.add( SRC );
+		while ( !toVisit.isEmpty() ) {
+			int state = toVisit.poll();
+			for ( int edge = this.edgeStart[state]; edge < this.edgeStart[state + 1]; ++edge ) {
+				int child = this.edgeDestination[edge];
+				//a counted state has to read its code point at least minCount times before it can be left
+				int read = child != SNK && (this.kind[child] == STATIC || this.kind[child] == SET) ? this.minCount[child] : 0;
+				if ( shortest[state] + read < shortest[child] ) {
+					shortest[child] = shortest[state] + read;
+					if ( read == 0 ) {
+						toVisit.addFirst( child );
+					}
+					else {
+						toVisit.addLast( child );
+					}
+				}
+			}
+		}
+		return shortest[SNK] != Integer.MAX_VALUE ? shortest[SNK] : 0;
+	}
+
+	/**
+	 * @return the number of code points on the longest path from SRC to SNK or {@link #UNBOUNDED}
+	 * if there is a cycle or a backreference on the way
+	 */
+	private int computeMaxMatchLength() {
+		final int notVisited = -2;
+		final int visiting = -3;
+		final int noPath = -4;
+		//longest[state] is the longest path from the state to SNK
+		int[] longest = new int[this.stateCount];
+		Arrays.fill( longest, notVisited );
+		longest[SNK] = 0;
+		int[] stack = new int[this.stateCount];
+		int[] nextEdge = new int[this.stateCount];
+		int depth = 0;
+		stack[depth++] = SRC;
+		longest[SRC] = visiting;
+		nextEdge[SRC] = this.edgeStart[SRC];
+		int[] partial = new int[this.stateCount];
+		partial[SRC] = noPath;
+		while ( depth > 0 ) {
+			int state = stack[depth - 1];
+			int child;
+			if ( nextEdge[state] < this.edgeStart[state + 1] ) {
+				child = this.edgeDestination[nextEdge[state]++];
+				if ( this.kind[child] == VARIABLE || longest[child] == visiting ) {
+					//a backreference or a cycle
+					return UNBOUNDED;
+				}
+				if ( longest[child] == notVisited ) {
+					longest[child] = visiting;
+					partial[child] = noPath;
+					nextEdge[child] = this.edgeStart[child];
+					stack[depth++] = child;
+					continue;
+				}
+			}
+			else {
+				longest[state] = partial[state];
+				if ( --depth == 0 ) {
+					break;
+				}
+				child = state;
+				state = stack[depth - 1];
+			}
+			if ( longest[child] != noPath ) {
+				if ( this.maxCount[child] == State.UNBOUNDED_COUNT ) {
+					return UNBOUNDED;
+				}
+				int read = child == SNK || this.kind[child] == BOUND ? 0 : this.maxCount[child];
+				partial[state] = Math.max( partial[state], longest[child] + read );
+			}
+		}
+		return longest[SRC] == noPath ? 0 : longest[SRC];
+	}
+
+	/**
+	 * @return how many different counts a run in the given state has to tell apart: up to maxCount
+	 * or, if the state can be read without end, up to minCount (all counts after it are the same)
+	 */
+	private int distinctCounts(int state) {
+		return this.maxCount[state] == State.UNBOUNDED_COUNT ? this.minCount[state] : this.maxCount[state];
+	}
+
+	private boolean reachesSnk(int edge, boolean[] reachesSnk) {
+		return edge != -1 && reachesSnk[this.edgeDestination[edge]];
+	}
+
+	private int addEdge(int edge, EdgeGraph.Edge cur, Map<Integer, Integer> ids) {
+		int destination = ids.get( cur.destination );
+		this.edgeDestination[edge] = destination;
+		this.edgeLabel[edge] = this.codePoint[destination];
+
+		//apply the actions in the iteration order of the original Set and only keep
+		//the net effect per variable (which is always either OPEN, CLOSE or RESET)
+		Map<Integer, ActionType> netActions = new HashMap<>();
+		for ( MemoryAction action : cur.memoryAction ) {
+			Integer varIdx = this.variableIndices.get( action.variable );
+			if ( varIdx == null ) {
+				throw new AssertionError( "variable with name " + action.variable + " not found" );
+			}
+			ActionType before = netActions.get( varIdx );
+			ActionType net = action.actionType;
+			if ( action.actionType == ActionType.CLOSE && before != null && before != ActionType.CLOSE ) {
+				//the contents were already reset before
+				net = ActionType.RESET;
+			}
+			netActions.put( varIdx, net );
+		}
+		for ( Map.Entry<Integer, ActionType> entry : netActions.entrySet() ) {
+			int word = edge * this.maskWords + (entry.getKey() >>> 6);
+			long bit = 1L << entry.getKey();
+			switch ( entry.getValue() ) {
+				case OPEN:
+					this.openMask[word] |= bit;
+					break;
+				case CLOSE:
+					this.closeMask[word] |= bit;
+					break;
+				case RESET:
+					this.resetMask[word] |= bit;
+					break;
+				default:
+					throw new AssertionError( "unknown action type: " + entry.getValue() );
+			}
+		}
+		this.hasActions[edge] = !netActions.isEmpty();
+		return edge + 1;
+	}
+
+	/**
+	 * @return the index of the edge that can be taken from the given state for the
+	 * current token in the given {@link MatchInfo} or -1 if there is none
+	 */
+	public int getEdge(int state, MatchInfo matchInfo, VariableSlots variables) {
+		{
+			int edge = this.boundEdge[state];
+			if ( edge != -1 && this.bound[this.edgeDestination[edge]].canConsume( matchInfo ) ) {
+				return edge;
+			}
+		}
+
+		EfficientString token = matchInfo.getString();
+		int length = token.codePointLength();
+		if ( length == 0 ) {
+			if ( this.epsilonEdge[state] != -1 ) {
+				return this.epsilonEdge[state];
+			}
+		}
+		else if ( length == 1 ) {
+			int cp = this.caseInsensitive ? CaseFolding.fold( token.codePoint( 0 ) ) : token.codePoint( 0 );
+			int edge;
+			if ( cp < LATIN_1_SIZE ) {
+				int offset = this.latin1Offset[state];
+				edge = offset != -1 ? this.latin1Edge[offset + cp] : -1;
+			}
+			else {
+				edge = this.getStaticOrSetEdge( state, cp );
+			}
+			if ( edge != -1 ) {
+				return edge;
+			}
+		}
+
+		int edge = this.variableEdge[state];
+		if ( edge != -1 && variables.equalTo(
+				this.variableOf[this.edgeDestination[edge]],
+				matchInfo.getWholeString(),
+				token,
+				this.caseInsensitive
+		) ) {
+			return edge;
+		}
+		return -1;
+	}
+
+	int getStaticOrSetEdge(int state, int cp) {
+		int lo = this.edgeStart[state];
+		int hi = this.staticEnd[state] - 1;
+		while ( lo <= hi ) {
+			int mid = (lo + hi) >>> 1;
+			int label = this.edgeLabel[mid];
+			if ( label < cp ) {
+				lo = mid + 1;
+			}
+			else if ( label > cp ) {
+				hi = mid - 1;
+			}
+			else {
+				return mid;
+			}
+		}
+		for ( int edge = this.staticEnd[state]; edge < this.setEnd[state]; ++edge ) {
+			if ( this.set[this.edgeDestination[edge]].intersects( cp ) ) {
+				return edge;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return true if taking the given edge opens, closes or resets a variable
+	 */
+	public boolean hasActions(int edge) {
+		return this.hasActions[edge];
+	}
+
+	/**
+	 * applies the memory actions of the given edge
+	 */
+	public void act(int edge, VariableSlots variables) {
+		if ( !this.hasActions[edge] ) {
+			return;
+		}
+		int offset = edge * this.maskWords;
+		for ( int word = 0; word < this.maskWords; ++word ) {
+			variables.act( word, this.openMask[offset + word], this.closeMask[offset + word], this.resetMask[offset + word] );
+		}
+	}
+
+	/**
+	 * same as {@link #act(int, VariableSlots)}, but only for the variables that are read by a backreference.
+	 * The other variables stay closed and empty, which is enough if their contents are never looked at
+	 */
+	public void actReferenced(int edge, VariableSlots variables) {
+		if ( !this.hasReferencedActions[edge] ) {
+			return;
+		}
+		int offset = edge * this.maskWords;
+		for ( int word = 0; word < this.maskWords; ++word ) {
+			long referenced = this.referencedMask[word];
+			variables.act(
+					word,
+					this.openMask[offset + word] & referenced,
+					this.closeMask[offset + word] & referenced,
+					this.resetMask[offset + word] & referenced
+			);
+		}
+	}
+
+	public int maximalNextTokenLength(int state, VariableSlots variables) {
+		int length = this.tokenLength[state];
+		if ( length != VARIABLE_TOKEN_LENGTH ) {
+			return length;
+		}
+		return variables.length( this.variableOf[this.edgeDestination[this.variableEdge[state]]] );
+	}
+
+	/**
+	 * @return where a match can start: {@link #ANCHOR_NONE}, {@link #ANCHOR_LINE_START}
+	 * or {@link #ANCHOR_LAST_MATCH}
+	 */
+	public byte getStartAnchor() {
+		return this.startAnchor;
+	}
+
+	/**
+	 * @return true if every match ends at the end of the input ({@code \z})
+	 */
+	public boolean isAnchoredAtEndOfInput() {
+		return this.anchoredAtEndOfInput;
+	}
+
+	/**
+	 * @return the minimum length of a match in code points
+	 */
+	public int getMinMatchLength() {
+		return this.minMatchLength;
+	}
+
+	/**
+	 * @return the maximum length of a match in code points or {@link #UNBOUNDED}
+	 */
+	public int getMaxMatchLength() {
+		return this.maxMatchLength;
+	}
+
+	/**
+	 * @return what happens if the empty String is read in the given state until it is
+	 * either rejected or SNK is reached: {@link #EMPTY_REJECT}, {@link #EMPTY_ACCEPT} (by
+	 * taking {@link #getEpsilonEdge(int)}) or {@link #EMPTY_CONDITIONAL}
+	 */
+	public byte getEmptyAcceptance(int state) {
+		return this.emptyAcceptance[state];
+	}
+
+	/**
+	 * @return whether SNK can still be reached from the given state: {@link #DEAD},
+	 * {@link #LIVE_THROUGH_VARIABLE} or {@link #LIVE}
+	 */
+	public byte getLiveness(int state) {
+		return this.liveness[state];
+	}
+
+	public boolean isDead(int state) {
+		return this.liveness[state] == DEAD;
+	}
+
+	/**
+	 * @return true if the given state is {@link State#isCounted() counted}
+	 */
+	public boolean isCounted(int state) {
+		return this.maxCount[state] != 1;
+	}
+
+	/**
+	 * @return true if a run in the given state that has read its code point count times in a row
+	 * can read it once more without taking an edge
+	 */
+	public boolean canRepeat(int state, int count) {
+		return this.maxCount[state] == State.UNBOUNDED_COUNT || count < this.maxCount[state];
+	}
+
+	/**
+	 * @return true if a run in the given state that has read its code point count times in a row
+	 * can take the outgoing edges of the state
+	 */
+	public boolean canLeave(int state, int count) {
+		return count >= this.minCount[state];
+	}
+
+	/**
+	 * @return the count after reading the code point of the given counted state once more. Counts of
+	 * states that can be read without end stop growing at minCount as they all behave the same
+	 */
+	public int repeatedCount(int state, int count) {
+		return this.maxCount[state] == State.UNBOUNDED_COUNT ? Math.min( count + 1, this.minCount[state] ) : count + 1;
+	}
+
+	/**
+	 * @return true if the given code point is the one the given (static or set) state reads
+	 */
+	public boolean readsOwn(int state, int cp) {
+		if ( this.caseInsensitive ) {
+			cp = CaseFolding.fold( cp );
+		}
+		return this.kind[state] == STATIC ? this.codePoint[state] == cp : this.set[state].intersects( cp );
+	}
+
+	/**
+	 * @return the longest token that can be read next by a run in the given state with the given count
+	 * @see #maximalNextTokenLength(int, VariableSlots)
+	 */
+	public int maximalNextTokenLength(int state, int count, VariableSlots variables) {
+		return this.canRepeat( state, count ) ? 1 : this.maximalNextTokenLength( state, variables );
+	}
+
+	/**
+	 * @return true if more input could still be read from the given state on the way to SNK,
+	 * i.e. it is not dead and has other edges than the epsilon edge
+	 */
+	public boolean canReadMore(int state) {
+		return this.liveness[state] != DEAD &&
+				this.edgeStart[state + 1] - this.edgeStart[state] > (this.epsilonEdge[state] != -1 ? 1 : 0);
+	}
+
+	/**
+	 * @return true if more input could still be read by a run in the given state with the given count
+	 * @see #canReadMore(int)
+	 */
+	public boolean canReadMore(int state, int count) {
+		return this.liveness[state] != DEAD && (this.canRepeat( state, count ) || this.canReadMore( state ));
+	}
+
+	/**
+	 * @return the number of run states (see {@link #getRunState(int, int)}) or -1 if there are more than {@link #MAX_RUN_STATES}.
+	 * This is the number of states if there are no counted states
+	 */
+	public int getRunStateCount() {
+		return this.runStateCount;
+	}
+
+	/**
+	 * @return a single number for the given state and count (which has to be at most maxCount or, for
+	 * unbounded states, at most minCount). This is the state itself for a count of 1
+	 */
+	public int getRunState(int state, int count) {
+		return count <= 1 ? state : this.runStateOffset[state] + count - 2;
+	}
+
+	/**
+	 * @return the state of the given run state, only available if {@link #getRunStateCount()} is not -1
+	 */
+	public int getStateOfRunState(int runState) {
+		return this.stateOfRunState[runState];
+	}
+
+	/**
+	 * @return the count of the given run state, only available if {@link #getRunStateCount()} is not -1
+	 */
+	public int getCountOfRunState(int runState) {
+		return this.countOfRunState[runState];
+	}
+
+	public int getStateCount() {
+		return this.stateCount;
+	}
+
+	public int getEdgeCount() {
+		return this.edgeDestination.length;
+	}
+
+	public byte getKind(int state) {
+		return this.kind[state];
+	}
+
+	public boolean isBound(int state) {
+		return this.kind[state] == BOUND;
+	}
+
+	/**
+	 * @return true if the input is folded with {@link CaseFolding} before it is read
+	 */
+	public boolean isCaseInsensitive() {
+		return this.caseInsensitive;
+	}
+
+	/**
+	 * @return true if there is at least one {@link #VARIABLE} state
+	 */
+	public boolean hasBackReferences() {
+		return this.hasBackReferences;
+	}
+
+	/**
+	 * @return the idx of the given state in the original {@link EdgeGraph}
+	 */
+	public int getOriginalIdx(int state) {
+		return this.originalIdx[state];
+	}
+
+	/**
+	 * @return the index of the first outgoing edge of the given state
+	 */
+	public int getEdgeStart(int state) {
+		return this.edgeStart[state];
+	}
+
+	/**
+	 * @return the index after the last outgoing edge of the given state
+	 */
+	public int getEdgeEnd(int state) {
+		return this.edgeStart[state + 1];
+	}
+
+	/**
+	 * @return the index after the last static edge of the given state, the static edges
+	 * start at {@link #getEdgeStart(int)}
+	 */
+	public int getStaticEdgeEnd(int state) {
+		return this.staticEnd[state];
+	}
+
+	/**
+	 * @return the index after the last set edge of the given state, the set edges
+	 * start at {@link #getStaticEdgeEnd(int)}
+	 */
+	public int getSetEdgeEnd(int state) {
+		return this.setEnd[state];
+	}
+
+	/**
+	 * @return the edge to a {@link #BOUND} state of the given state or -1 if there is none
+	 */
+	public int getBoundEdge(int state) {
+		return this.boundEdge[state];
+	}
+
+	/**
+	 * @return the edge to SNK that reads the empty String or -1 if there is none
+	 */
+	public int getEpsilonEdge(int state) {
+		return this.epsilonEdge[state];
+	}
+
+	/**
+	 * @return the edge to a {@link #VARIABLE} state of the given state or -1 if there is none
+	 */
+	public int getVariableEdge(int state) {
+		return this.variableEdge[state];
+	}
+
+	public int getDestination(int edge) {
+		return this.edgeDestination[edge];
+	}
+
+	/**
+	 * @return the code point read when entering the given {@link #STATIC} state, -1 for SRC and SNK
+	 */
+	public int getCodePoint(int state) {
+		return this.codePoint[state];
+	}
+
+	/**
+	 * @return the {@link CodePointSet} of the given {@link #SET} state
+	 */
+	public CodePointSet getSet(int state) {
+		return this.set[state];
+	}
+
+	/**
+	 * @return the code points a match can start with or null if a match can start with anything
+	 */
+	public FirstCodePoints getFirstCodePoints() {
+		return this.firstCodePoints;
+	}
+
+	/**
+	 * @return the chains of states this graph can run through by reading a literal or null if there are none
+	 */
+	public LiteralRuns getLiteralRuns() {
+		return this.literalRuns;
+	}
+
+	/**
+	 * @return the code points grouped by the states that can read them or null if there are too many classes
+	 */
+	public CodePointClasses getCodePointClasses() {
+		return this.codePointClasses;
+	}
+
+	/**
+	 * @return the transition table of this graph or null if it can only be run by the
+	 * interpreter (see {@link Dfa#of(FrozenEdgeGraph)})
+	 */
+	public Dfa getDfa() {
+		return this.dfa;
+	}
+
+	/**
+	 * @return a literal that is part of every match or null if none could be found
+	 */
+	public RequiredLiteral getRequiredLiteral() {
+		return this.requiredLiteral;
+	}
+
+	public int getVariableCount() {
+		return this.variableNames.length;
+	}
+
+	public String getVariableName(int variable) {
+		return this.variableNames[variable];
+	}
+
+	/**
+	 * @return the index of the variable with the given name or -1 if there is none
+	 */
+	public int getVariableIndex(String name) {
+		Integer idx = this.variableIndices.get( name );
+		return idx != null ? idx : -1;
+	}
+
+	/**
+	 * @param occurence 1-based
+	 *
+	 * @return the index of the variable with the given occurence or -1 if there is none
+	 */
+	public int getVariableIndexByOccurence(int occurence) {
+		Integer idx = this.variableIndicesByOccurence.get( occurence );
+		return idx != null ? idx : -1;
+	}
+
+}
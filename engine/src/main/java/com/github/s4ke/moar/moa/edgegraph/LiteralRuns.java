@@ -0,0 +1,159 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa.edgegraph;
+
+import java.util.Arrays;
+
+import com.github.s4ke.moar.util.CaseFolding;
+import com.github.s4ke.moar.util.CharSeq;
+
+/**
+ * Chains of states of a {@link FrozenEdgeGraph} that have a single static edge (without memory actions)
+ * as their only way out (and are not counted), like the states of a literal word. Starting in such a state, the whole chain can
+ * only be run by reading the code points of the chain one after another, so it can be taken in one go
+ * after comparing them with the input.
+ * <p/>
+ * The code points of every chain are stored once, the states in the middle of a chain point into it.
+ * Chains that merge into the same tail are stored separately. For case-insensitive graphs the input is
+ * folded before it is compared.
+ *
+ * @author Martin Braun
+ */
+public final class LiteralRuns {
+
+	private final int[] codePoints;
+	private final int[] offset;
+	private final int[] length;
+	private final int[] end;
+	private final boolean caseInsensitive;
+
+	private LiteralRuns(int[] codePoints, int[] offset, int[] length, int[] end, boolean caseInsensitive) {
+		this.codePoints = codePoints;
+		this.offset = offset;
+		this.length = length;
+		this.end = end;
+		this.caseInsensitive = caseInsensitive;
+	}
+
+	/**
+	 * @return the literal runs of the given graph or null if it doesn't have any of two or more code points
+	 */
+	public static LiteralRuns of(FrozenEdgeGraph edges) {
+		int stateCount = edges.getStateCount();
+		//the successor of every state that can only go on through a single static edge, -1 otherwise
+		int[] successor = new int[stateCount];
+		boolean[] continued = new boolean[stateCount];
+		for ( int state = 0; state < stateCount; ++state ) {
+			successor[state] = -1;
+			int edge = edges.getEdgeStart( state );
+			//dead states could only lead to cycles of such states
+			if ( edges.getEdgeEnd( state ) - edge == 1 && edges.getStaticEdgeEnd( state ) == edge + 1
+					&& !edges.hasActions( edge ) && !edges.isDead( state ) && !edges.isCounted( state ) ) {
+				successor[state] = edges.getDestination( edge );
+				continued[successor[state]] = true;
+			}
+		}
+
+		int[] length = new int[stateCount];
+		int[] end = new int[stateCount];
+		int[] offset = new int[stateCount];
+		Arrays.fill( offset, -1 );
+		int[] codePoints = new int[16];
+		int codePointCount = 0;
+		for ( int head = 0; head < stateCount; ++head ) {
+			//every chain of live states starts at a state no other chain continues in
+			if ( successor[head] == -1 || continued[head] ) {
+				continue;
+			}
+			int chainStart = codePointCount;
+			int state = head;
+			while ( successor[state] != -1 ) {
+				if ( codePointCount == codePoints.length ) {
+					codePoints = Arrays.copyOf( codePoints, codePointCount * 2 );
+				}
+				codePoints[codePointCount++] = edges.getCodePoint( successor[state] );
+				state = successor[state];
+			}
+			int last = state;
+			state = head;
+			for ( int i = chainStart; i < codePointCount; ++i ) {
+				//states in the tail of an earlier chain keep pointing into that one
+				if ( offset[state] == -1 ) {
+					offset[state] = i;
+					length[state] = codePointCount - i;
+					end[state] = last;
+				}
+				state = successor[state];
+			}
+		}
+
+		boolean any = false;
+		for ( int state = 0; state < stateCount; ++state ) {
+			any |= length[state] > 1;
+		}
+		if ( !any ) {
+			return null;
+		}
+		return new LiteralRuns( Arrays.copyOf( codePoints, codePointCount ), offset, length, end, edges.isCaseInsensitive() );
+	}
+
+	/**
+	 * @return the number of code points that are read by the run starting at the given state, 0 if there is none
+	 */
+	public int getLength(int state) {
+		return this.length[state];
+	}
+
+	/**
+	 * @return the state the run starting at the given state ends at
+	 */
+	public int getEnd(int state) {
+		return this.end[state];
+	}
+
+	/**
+	 * @return true if the input contains the code points of the run starting at the given state at the
+	 * given position. The input has to contain at least {@link #getLength(int)} more code points
+	 */
+	public boolean occursAt(int state, CharSeq str, int pos) {
+		int[] codePoints = this.codePoints;
+		int offset = this.offset[state];
+		int length = this.length[state];
+		if ( this.caseInsensitive ) {
+			for ( int i = 0; i < length; ++i ) {
+				if ( CaseFolding.fold( str.codePoint( pos + i ) ) != codePoints[offset + i] ) {
+					return false;
+				}
+			}
+			return true;
+		}
+		for ( int i = 0; i < length; ++i ) {
+			if ( str.codePoint( pos + i ) != codePoints[offset + i] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
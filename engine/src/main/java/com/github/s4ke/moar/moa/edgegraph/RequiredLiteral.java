@@ -0,0 +1,357 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa.edgegraph;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.github.s4ke.moar.util.CaseFolding;
+import com.github.s4ke.moar.util.CharSeq;
+
+/**
+ * A literal that has to be read by every path from SRC to SNK of a {@link FrozenEdgeGraph}.
+ * Inputs that don't contain it can be rejected without running the automaton.
+ * If the literal is a prefix of every match, the matcher can also skip straight to
+ * its next occurrence.
+ * <p/>
+ * The literal is found by computing the states that dominate SNK: if such a state is a
+ * {@link FrozenEdgeGraph#STATIC} state and its only predecessor is a static state as well,
+ * then every match contains the code points of both consecutively and so on.
+ * Searching is done with Boyer-Moore-Horspool over the code points of the input
+ * (or over the bytes of UTF-8 encoded input). For case-insensitive graphs the input is folded
+ * with {@link CaseFolding} before it is compared (as only US-ASCII letters are folded, this can be done
+ * for single bytes as well).
+ *
+ * @author Martin Braun
+ */
+public final class RequiredLiteral {
+
+	private static final int LATIN_1_SIZE = 256;
+
+	private final int[] codePoints;
+	private final boolean prefix;
+	private final int[] latin1Shift;
+	private final byte[] utf8;
+	private final int[] byteShift;
+	private final boolean caseInsensitive;
+
+	private RequiredLiteral(int[] codePoints, boolean prefix, boolean caseInsensitive) {
+		this.codePoints = codePoints;
+		this.prefix = prefix;
+		this.caseInsensitive = caseInsensitive;
+		this.latin1Shift = new int[LATIN_1_SIZE];
+		Arrays.fill( this.latin1Shift, codePoints.length );
+		for ( int i = 0; i < codePoints.length - 1; ++i ) {
+			if ( codePoints[i] < LATIN_1_SIZE ) {
+				this.setShift( this.latin1Shift, codePoints[i], codePoints.length - 1 - i );
+			}
+		}
+		this.utf8 = new String( codePoints, 0, codePoints.length ).getBytes( StandardCharsets.UTF_8 );
+		this.byteShift = new int[LATIN_1_SIZE];
+		Arrays.fill( this.byteShift, this.utf8.length );
+		for ( int i = 0; i < this.utf8.length - 1; ++i ) {
+			this.setShift( this.byteShift, this.utf8[i] & 0xFF, this.utf8.length - 1 - i );
+		}
+	}
+
+	private void setShift(int[] shifts, int value, int shift) {
+		shifts[value] = shift;
+		int upperCase = CaseFolding.upperCaseVariant( value );
+		if ( this.caseInsensitive && upperCase != -1 ) {
+			shifts[upperCase] = shift;
+		}
+	}
+
+	/**
+	 * @return the longest literal that is part of every match of the given graph or null if there is none
+	 */
+	public static RequiredLiteral of(FrozenEdgeGraph edges) {
+		int stateCount = edges.getStateCount();
+
+		List<List<Integer>> predecessors = new ArrayList<>( stateCount );
+		for ( int i = 0; i < stateCount; ++i ) {
+			predecessors.add( new ArrayList<>() );
+		}
+		BitSet reachable = new BitSet( stateCount );
+		{
+			int[] stack = new int[stateCount];
+			int stackSize = 0;
+			stack[stackSize++] = FrozenEdgeGraph.SRC;
+			reachable.set( FrozenEdgeGraph.SRC );
+			while ( stackSize > 0 ) {
+				int state = stack[--stackSize];
+				for ( int edge = edges.getEdgeStart( state ); edge < edges.getEdgeEnd( state ); ++edge ) {
+					int destination = edges.getDestination( edge );
+					predecessors.get( destination ).add( state );
+					if ( !reachable.get( destination ) ) {
+						reachable.set( destination );
+						stack[stackSize++] = destination;
+					}
+				}
+			}
+		}
+		if ( !reachable.get( FrozenEdgeGraph.SNK ) || !predecessors.get( FrozenEdgeGraph.SRC ).isEmpty() ) {
+			return null;
+		}
+
+		BitSet[] dominators = dominators( stateCount, reachable, predecessors );
+
+		int[] best = null;
+		boolean bestIsPrefix = false;
+		BitSet snkDominators = dominators[FrozenEdgeGraph.SNK];
+		for ( int state = snkDominators.nextSetBit( 0 ); state != -1; state = snkDominators.nextSetBit( state + 1 ) ) {
+			if ( state == FrozenEdgeGraph.SRC || state == FrozenEdgeGraph.SNK || edges.getKind( state ) != FrozenEdgeGraph.STATIC ) {
+				continue;
+			}
+			//walk back as long as the state can only be reached from a single static (or bound) state
+			List<Integer> chain = new ArrayList<>();
+			BitSet visited = new BitSet( stateCount );
+			boolean prefix = false;
+			int cur = state;
+			while ( true ) {
+				visited.set( cur );
+				if ( edges.getKind( cur ) == FrozenEdgeGraph.STATIC ) {
+					chain.add( edges.getCodePoint( cur ) );
+				}
+				if ( edges.isCounted( cur ) ) {
+					//only the last of the repeated code points is known to come right before the chain
+					break;
+				}
+				List<Integer> curPredecessors = predecessors.get( cur );
+				if ( curPredecessors.size() != 1 ) {
+					break;
+				}
+				int predecessor = curPredecessors.get( 0 );
+				if ( predecessor == FrozenEdgeGraph.SRC ) {
+					prefix = true;
+					break;
+				}
+				byte kind = edges.getKind( predecessor );
+				if ( visited.get( predecessor ) || (kind != FrozenEdgeGraph.STATIC && kind != FrozenEdgeGraph.BOUND) ) {
+					break;
+				}
+				cur = predecessor;
+			}
+			if ( best == null || chain.size() > best.length || (chain.size() == best.length && prefix && !bestIsPrefix) ) {
+				best = new int[chain.size()];
+				for ( int i = 0; i < best.length; ++i ) {
+					best[i] = chain.get( best.length - 1 - i );
+				}
+				bestIsPrefix = prefix;
+			}
+		}
+		if ( best == null ) {
+			return null;
+		}
+		return new RequiredLiteral( best, bestIsPrefix, edges.isCaseInsensitive() );
+	}
+
+	private static BitSet[] dominators(int stateCount, BitSet reachable, List<List<Integer>> predecessors) {
+		BitSet[] dominators = new BitSet[stateCount];
+		for ( int state = reachable.nextSetBit( 0 ); state != -1; state = reachable.nextSetBit( state + 1 ) ) {
+			dominators[state] = new BitSet( stateCount );
+			if ( state == FrozenEdgeGraph.SRC ) {
+				dominators[state].set( state );
+			}
+			else {
+				dominators[state].or( reachable );
+			}
+		}
+		boolean changed = true;
+		while ( changed ) {
+			changed = false;
+			for ( int state = reachable.nextSetBit( 0 ); state != -1; state = reachable.nextSetBit( state + 1 ) ) {
+				if ( state == FrozenEdgeGraph.SRC ) {
+					continue;
+				}
+				BitSet cur = new BitSet( stateCount );
+				cur.or( reachable );
+				for ( int predecessor : predecessors.get( state ) ) {
+					cur.and( dominators[predecessor] );
+				}
+				cur.set( state );
+				if ( !cur.equals( dominators[state] ) ) {
+					dominators[state] = cur;
+					changed = true;
+				}
+			}
+		}
+		return dominators;
+	}
+
+	public int length() {
+		return this.codePoints.length;
+	}
+
+	public int codePoint(int index) {
+		return this.codePoints[index];
+	}
+
+	/**
+	 * @return true if the given code point of the input matches the code point at the given index of this literal
+	 */
+	public boolean matches(int index, int codePoint) {
+		return this.fold( codePoint ) == this.codePoints[index];
+	}
+
+	/**
+	 * @return true if every match starts with this literal
+	 */
+	public boolean isPrefix() {
+		return this.prefix;
+	}
+
+	/**
+	 * @return true if this literal occurs in the given input at the given position
+	 */
+	public boolean occursAt(CharSeq str, int pos) {
+		if ( pos + this.codePoints.length > str.codePointLength() ) {
+			return false;
+		}
+		for ( int i = 0; i < this.codePoints.length; ++i ) {
+			if ( this.fold( str.codePoint( pos + i ) ) != this.codePoints[i] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the position of the first occurrence of this literal in the given input at or after
+	 * the given position or -1 if there is none
+	 */
+	public int indexOf(CharSeq str, int from) {
+		int length = this.codePoints.length;
+		int last = length - 1;
+		int lastCodePoint = this.codePoints[last];
+		int end = str.codePointLength() - length;
+		int pos = from;
+		while ( pos <= end ) {
+			int cp = this.fold( str.codePoint( pos + last ) );
+			if ( cp == lastCodePoint ) {
+				int i = last - 1;
+				while ( i >= 0 && this.fold( str.codePoint( pos + i ) ) == this.codePoints[i] ) {
+					--i;
+				}
+				if ( i < 0 ) {
+					return pos;
+				}
+			}
+			pos += this.shift( cp );
+		}
+		return -1;
+	}
+
+	/**
+	 * @return true if the UTF-8 encoding of this literal occurs in the given bytes at the given position
+	 * (relative to offset)
+	 */
+	public boolean occursAt(byte[] bytes, int offset, int length, int pos) {
+		if ( pos + this.utf8.length > length ) {
+			return false;
+		}
+		for ( int i = 0; i < this.utf8.length; ++i ) {
+			if ( this.fold( bytes[offset + pos + i] ) != this.utf8[i] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * same as {@link #indexOf(CharSeq, int)} but for UTF-8 encoded input, all positions are relative to offset.
+	 * As no encoded code point is part of the encoding of another, occurrences always start at a code point
+	 */
+	public int indexOf(byte[] bytes, int offset, int length, int from) {
+		int last = this.utf8.length - 1;
+		byte lastByte = this.utf8[last];
+		int end = offset + length - this.utf8.length;
+		int pos = offset + from;
+		while ( pos <= end ) {
+			byte b = this.fold( bytes[pos + last] );
+			if ( b == lastByte ) {
+				int i = last - 1;
+				while ( i >= 0 && this.fold( bytes[pos + i] ) == this.utf8[i] ) {
+					--i;
+				}
+				if ( i < 0 ) {
+					return pos - offset;
+				}
+			}
+			pos += this.byteShift[b & 0xFF];
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the length of the UTF-8 encoding of this literal
+	 */
+	public int utf8Length() {
+		return this.utf8.length;
+	}
+
+	/**
+	 * @return the byte at the given index of the UTF-8 encoding of this literal
+	 */
+	public byte utf8Byte(int index) {
+		return this.utf8[index];
+	}
+
+	/**
+	 * @return true if the given byte of the input matches the byte at the given index of the UTF-8 encoding of this literal
+	 */
+	public boolean utf8ByteMatches(int index, byte b) {
+		return this.fold( b ) == this.utf8[index];
+	}
+
+	private int fold(int cp) {
+		return this.caseInsensitive ? CaseFolding.fold( cp ) : cp;
+	}
+
+	private byte fold(byte b) {
+		//continuation and lead bytes are negative, so they are never folded
+		return this.caseInsensitive ? (byte) CaseFolding.fold( b ) : b;
+	}
+
+	private int shift(int cp) {
+		if ( cp < LATIN_1_SIZE ) {
+			return this.latin1Shift[cp];
+		}
+		for ( int i = this.codePoints.length - 2; i >= 0; --i ) {
+			if ( this.codePoints[i] == cp ) {
+				return this.codePoints.length - 1 - i;
+			}
+		}
+		return this.codePoints.length;
+	}
+
+	@Override
+	public String toString() {
+		return new String( this.codePoints, 0, this.codePoints.length );
+	}
+
+}
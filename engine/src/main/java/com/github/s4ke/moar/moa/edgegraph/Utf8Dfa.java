@@ -0,0 +1,296 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa.edgegraph;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The byte level version of a {@link Dfa} for matching UTF-8 encoded input without decoding it.
+ * The first states are the ones of the {@link Dfa}, all others are in the middle of a multi-byte
+ * sequence and only read continuation bytes. The code point intervals of the {@link CodePointClasses}
+ * are expanded into the byte sequences that encode them. Intermediate states with the same transitions
+ * are shared, so sets like . or [^a-z] only need a handful of them.
+ * <p/>
+ * Overlong encodings, surrogates and code points after {@link Character#MAX_CODE_POINT} have no
+ * transitions, so malformed input is never part of a match.
+ *
+ * @author Martin Braun
+ */
+public final class Utf8Dfa {
+
+	/**
+	 * graphs with more states (including the intermediate ones) are left to the decoding matchers
+	 */
+	public static final int MAX_STATES = 4 * Dfa.MAX_STATES;
+
+	private static final int BYTE_COUNT = 256;
+	private static final int BYTE_SHIFT = 8;
+	private static final int CONTINUATION_START = 0x80;
+	private static final int CONTINUATION_COUNT = 64;
+	private static final int CONTINUATION_BITS = 6;
+
+	//the smallest code point that has to be encoded with the given number of bytes
+	private static final int[] MIN_CODE_POINT = {0, 0, 0x80, 0x800, 0x10000};
+
+	private static final int NONE = -3;
+	private static final int NOT_UNIFORM = -2;
+
+	private final Dfa dfa;
+	private final int dfaStateCount;
+	private final int stateCount;
+	private final int[] next;
+
+	private Utf8Dfa(Dfa dfa, int stateCount, int[] next) {
+		this.dfa = dfa;
+		this.stateCount = stateCount;
+		this.next = next;
+		this.dfaStateCount = dfa.getStateCount();
+	}
+
+	/**
+	 * @return the byte level table for the given {@link Dfa} or null if it would have more than {@link #MAX_STATES} states
+	 */
+	public static Utf8Dfa of(Dfa dfa) {
+		Builder builder = new Builder( dfa );
+		int dfaStateCount = dfa.getStateCount();
+		int[][] dfaRows = new int[dfaStateCount][];
+		for ( int state = 0; state < dfaStateCount; ++state ) {
+			dfaRows[state] = builder.row( state );
+			if ( dfaStateCount + builder.rows.size() > MAX_STATES ) {
+				return null;
+			}
+		}
+
+		int stateCount = dfaStateCount + builder.rows.size();
+		int[] next = new int[stateCount * BYTE_COUNT];
+		Arrays.fill( next, -1 );
+		for ( int state = 0; state < dfaStateCount; ++state ) {
+			System.arraycopy( dfaRows[state], 0, next, state * BYTE_COUNT, BYTE_COUNT );
+		}
+		for ( int i = 0; i < builder.rows.size(); ++i ) {
+			System.arraycopy(
+					builder.rows.get( i ),
+					0,
+					next,
+					(dfaStateCount + i) * BYTE_COUNT + CONTINUATION_START,
+					CONTINUATION_COUNT
+			);
+		}
+		return new Utf8Dfa( dfa, stateCount, next );
+	}
+
+	/**
+	 * @return the state after reading the given byte (in [0, 255]) in the given state or -1 if it can't be read
+	 */
+	public int next(int state, int b) {
+		return this.next[(state << BYTE_SHIFT) | b];
+	}
+
+	/**
+	 * @see Dfa#reads(int), only defined for the states of the {@link Dfa}
+	 */
+	public boolean reads(int state) {
+		return this.dfa.reads( state );
+	}
+
+	/**
+	 * @see Dfa#accepts(int), only defined for the states of the {@link Dfa}
+	 */
+	public boolean accepts(int state) {
+		return this.dfa.accepts( state );
+	}
+
+	/**
+	 * @see Dfa#surelyAccepts(int), only defined for the states of the {@link Dfa}
+	 */
+	public boolean surelyAccepts(int state) {
+		return this.dfa.surelyAccepts( state );
+	}
+
+	/**
+	 * @see Dfa#isDead(int), only defined for the states of the {@link Dfa}
+	 */
+	public boolean isDead(int state) {
+		return this.dfa.isDead( state );
+	}
+
+	/**
+	 * @see Dfa#canReadMore(int), only defined for the states of the {@link Dfa}
+	 */
+	public boolean canReadMore(int state) {
+		return this.dfa.canReadMore( state );
+	}
+
+	/**
+	 * @return true if the given state is in the middle of a code point, i.e. is not one of the {@link Dfa}'s states
+	 */
+	public boolean isIntermediate(int state) {
+		return state >= this.dfaStateCount;
+	}
+
+	public int getStateCount() {
+		return this.stateCount;
+	}
+
+	public Dfa getDfa() {
+		return this.dfa;
+	}
+
+	/**
+	 * @return true if the given byte starts a sequence that could be the first code point of a match
+	 * (only meaningful if the graph has {@link FrozenEdgeGraph#getFirstCodePoints() first code points})
+	 */
+	public boolean isFirstByte(int b) {
+		return this.next[(FrozenEdgeGraph.SRC << BYTE_SHIFT) | b] != -1;
+	}
+
+	private static final class Builder {
+
+		private final Dfa dfa;
+		private final CodePointClasses classes;
+		private final int dfaStateCount;
+		//the continuation bytes of the intermediate states
+		private final List<int[]> rows = new ArrayList<>();
+		private final Map<IntBuffer, Integer> rowIds = new HashMap<>();
+		private final Map<Long, Integer> uniformIds = new HashMap<>();
+
+		private Builder(Dfa dfa) {
+			this.dfa = dfa;
+			this.classes = dfa.getCodePointClasses();
+			this.dfaStateCount = dfa.getStateCount();
+		}
+
+		int[] row(int state) {
+			int[] row = new int[BYTE_COUNT];
+			Arrays.fill( row, -1 );
+			if ( !this.dfa.reads( state ) ) {
+				return row;
+			}
+			for ( int b = 0; b < CONTINUATION_START; ++b ) {
+				row[b] = this.uniformTarget( state, b, b, 1 );
+			}
+			//0xC0 and 0xC1 only start overlong encodings, so they lead nowhere
+			for ( int b = 0xC0; b < 0xE0; ++b ) {
+				row[b] = this.node( state, (b & 0x1F) << CONTINUATION_BITS, 1, 2 );
+			}
+			for ( int b = 0xE0; b < 0xF0; ++b ) {
+				row[b] = this.node( state, (b & 0x0F) << (2 * CONTINUATION_BITS), 2, 3 );
+			}
+			for ( int b = 0xF0; b < 0xF8; ++b ) {
+				row[b] = this.node( state, (b & 0x07) << (3 * CONTINUATION_BITS), 3, 4 );
+			}
+			return row;
+		}
+
+		/**
+		 * @return the state after reading the bytes that encode the code points starting at the given one
+		 * up to the point where the given number of continuation bytes are left
+		 */
+		private int node(int state, int from, int remaining, int length) {
+			int size = 1 << (CONTINUATION_BITS * remaining);
+			int target = this.uniformTarget( state, from, from + size - 1, length );
+			if ( target != NOT_UNIFORM ) {
+				return target == -1 || remaining == 0 ? target : this.uniformNode( target, remaining );
+			}
+			int[] row = new int[CONTINUATION_COUNT];
+			int childSize = size / CONTINUATION_COUNT;
+			for ( int i = 0; i < CONTINUATION_COUNT; ++i ) {
+				row[i] = this.node( state, from + i * childSize, remaining - 1, length );
+			}
+			return this.intern( row );
+		}
+
+		/**
+		 * @return the state that reads the given number of arbitrary continuation bytes and then is in the given state
+		 */
+		private int uniformNode(int target, int remaining) {
+			long key = ((long) target << 2) | remaining;
+			Integer id = this.uniformIds.get( key );
+			if ( id == null ) {
+				int[] row = new int[CONTINUATION_COUNT];
+				Arrays.fill( row, remaining == 1 ? target : this.uniformNode( target, remaining - 1 ) );
+				id = this.intern( row );
+				this.uniformIds.put( key, id );
+			}
+			return id;
+		}
+
+		private int intern(int[] row) {
+			IntBuffer key = IntBuffer.wrap( row );
+			Integer id = this.rowIds.get( key );
+			if ( id == null ) {
+				id = this.dfaStateCount + this.rows.size();
+				this.rows.add( row );
+				this.rowIds.put( key, id );
+			}
+			return id;
+		}
+
+		/**
+		 * @return the state all the code points in [from, to] encoded with the given number of bytes lead to,
+		 * {@link #NOT_UNIFORM} if they lead to different states
+		 */
+		private int uniformTarget(int state, int from, int to, int length) {
+			int target = NONE;
+			int cp = from;
+			while ( cp <= to ) {
+				int pieceEnd;
+				int pieceTarget;
+				if ( cp < MIN_CODE_POINT[length] ) {
+					pieceEnd = Math.min( to, MIN_CODE_POINT[length] - 1 );
+					pieceTarget = -1;
+				}
+				else if ( cp > Character.MAX_CODE_POINT ) {
+					pieceEnd = to;
+					pieceTarget = -1;
+				}
+				else if ( cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE ) {
+					pieceEnd = Math.min( to, Character.MAX_SURROGATE );
+					pieceTarget = -1;
+				}
+				else {
+					int interval = this.classes.intervalOf( cp );
+					pieceEnd = Math.min( to, this.classes.getIntervalStart( interval + 1 ) - 1 );
+					if ( cp < Character.MIN_SURROGATE ) {
+						pieceEnd = Math.min( pieceEnd, Character.MIN_SURROGATE - 1 );
+					}
+					pieceTarget = this.dfa.nextOfClass( state, this.classes.getIntervalClass( interval ) );
+				}
+				if ( target != NONE && target != pieceTarget ) {
+					return NOT_UNIFORM;
+				}
+				target = pieceTarget;
+				cp = pieceEnd + 1;
+			}
+			return target;
+		}
+
+	}
+
+}
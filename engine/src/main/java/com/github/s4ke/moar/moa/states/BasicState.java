@@ -38,10 +38,21 @@ public class BasicState implements State {
 
 	public final int idx;
 	public final EfficientString string;
+	public final int minCount;
+	public final int maxCount;
 
 	public BasicState(int idx, String string) {
+		this( idx, string, 1, 1 );
+	}
+
+	/**
+	 * creates a counted state, see {@link State#isCounted()}
+	 */
+	public BasicState(int idx, String string, int minCount, int maxCount) {
 		this.idx = idx;
 		this.string = new EfficientString( string );
+		this.minCount = minCount;
+		this.maxCount = maxCount;
 	}
 
 	public EfficientString getToken() {
@@ -88,11 +99,22 @@ public class BasicState implements State {
 		return false;
 	}
 
+	@Override
+	public int getMinCount() {
+		return this.minCount;
+	}
+
+	@Override
+	public int getMaxCount() {
+		return this.maxCount;
+	}
+
 	@Override
 	public String toString() {
 		return "BasicState{" +
 				"idx=" + idx +
 				", string='" + string + '\'' +
+				(this.isCounted() ? ", minCount=" + minCount + ", maxCount=" + maxCount : "") +
 				'}';
 	}
 
@@ -110,6 +132,9 @@ public class BasicState implements State {
 		if ( idx != that.idx ) {
 			return false;
 		}
+		if ( minCount != that.minCount || maxCount != that.maxCount ) {
+			return false;
+		}
 		return !(string != null ? !string.equals( that.string ) : that.string != null);
 
 	}
@@ -21,16 +21,33 @@
  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  SOFTWARE.
  */
-package com.github.s4ke.moar.moa.edgegraph;
+package com.github.s4ke.moar.moa.states;
 
-import com.github.s4ke.moar.moa.states.State;
+import java.util.function.Function;
 
 /**
+ * A primitive condition for {@link BoundState}s. This is still a {@link Function} so it can be
+ * used everywhere a condition was accepted before, but {@link BoundState} calls
+ * {@link #test(MatchInfo)} directly so no Boolean has to be boxed for every check.
+ *
  * @author Martin Braun
  */
-public interface CurStateHolder {
+@FunctionalInterface
+public interface BoundCondition extends Function<MatchInfo, Boolean> {
 
-	State getState();
+	BoundCondition START_OF_LINE = MatchInfo::isAtLineStart;
+
+	BoundCondition END_OF_LINE = MatchInfo::isAtLineEnd;
+
+	BoundCondition END_OF_INPUT = (mi) -> mi.getPos() == mi.getWholeString().codePointLength();
+
+	BoundCondition END_OF_LAST_MATCH = (mi) -> mi.getLastMatch() == -1 || mi.getPos() == mi.getLastMatch();
+
+	boolean test(MatchInfo matchInfo);
+
+	@Override
+	default Boolean apply(MatchInfo matchInfo) {
+		return this.test( matchInfo );
+	}
 
-	void setState(State state);
 }
@@ -38,10 +38,14 @@ public class BoundState implements State {
 	private final int idx;
 	private final String boundHandled;
 	private final Function<MatchInfo, Boolean> condition;
+	private final BoundCondition primitiveCondition;
 
 	public BoundState(int idx, String boundHandled, Function<MatchInfo, Boolean> condition) {
 		this.idx = idx;
 		this.condition = condition;
+		this.primitiveCondition = condition instanceof BoundCondition ?
+				(BoundCondition) condition :
+				condition::apply;
 		this.boundHandled = boundHandled;
 	}
 
@@ -49,6 +53,10 @@ public class BoundState implements State {
 		return this.boundHandled;
 	}
 
+	public Function<MatchInfo, Boolean> getCondition() {
+		return this.condition;
+	}
+
 	@Override
 	public int getIdx() {
 		return this.idx;
@@ -66,7 +74,7 @@ public class BoundState implements State {
 
 	@Override
 	public boolean canConsume(MatchInfo matchInfo) {
-		return this.condition.apply( matchInfo );
+		return this.primitiveCondition.test( matchInfo );
 	}
 
 	@Override
@@ -0,0 +1,152 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa.states;
+
+import com.github.s4ke.moar.util.CharSeq;
+
+/**
+ * Bitsets of the positions in an input that are followed by a line break ({@code ^} matches
+ * after these) and the positions {@code $} matches at. The index is built lazily, chunk by chunk,
+ * up to the highest position that was asked for, so every check is O(1) amortized and
+ * inputs that are never checked for line bounds are never scanned.
+ * <p/>
+ * Line breaks are \n, \r\n, \u0085, \u2028 and \u2029 (a single \r is not a line break).
+ *
+ * @author Martin Braun
+ */
+public final class LineBreakIndex {
+
+	private static final int CHUNK_SIZE = 1024;
+
+	private CharSeq str;
+	private int length;
+	//bit i is set if a line break starts at i
+	private long[] lineBreaks = new long[0];
+	//bit i is set if $ matches at i (except for the end of input)
+	private long[] lineEnds = new long[0];
+	private int indexedUpTo;
+
+	/**
+	 * discards the index and starts over for the given input
+	 */
+	public void reset(CharSeq str) {
+		this.str = str;
+		this.length = str != null ? str.codePointLength() : 0;
+		this.indexedUpTo = 0;
+		int words = (this.length >>> 6) + 1;
+		if ( this.lineBreaks.length < words ) {
+			this.lineBreaks = new long[words];
+			this.lineEnds = new long[words];
+		}
+	}
+
+	/**
+	 * @return true if {@code ^} matches at the given position
+	 */
+	public boolean isLineStart(int pos) {
+		// Perl does not match ^ at end of input even after newline
+		if ( pos >= this.length ) {
+			return false;
+		}
+		if ( pos == 0 ) {
+			return true;
+		}
+		return this.isSet( this.lineBreaks, pos - 1 );
+	}
+
+	/**
+	 * @return true if {@code $} matches at the given position
+	 */
+	public boolean isLineEnd(int pos) {
+		if ( pos >= this.length ) {
+			return pos == this.length;
+		}
+		return this.isSet( this.lineEnds, pos );
+	}
+
+	/**
+	 * @return the first position at or after the given one {@code ^} matches at or -1 if there is none
+	 */
+	public int nextLineStart(int from) {
+		if ( from <= 0 ) {
+			return this.length > 0 ? 0 : -1;
+		}
+		//look for the next line break at or after from - 1
+		int pos = from - 1;
+		while ( pos < this.length - 1 ) {
+			if ( pos >= this.indexedUpTo ) {
+				this.indexUpTo( pos );
+			}
+			int word = pos >>> 6;
+			//the bits after indexedUpTo are always cleared
+			long bits = this.lineBreaks[word] & (-1L << pos);
+			if ( bits != 0 ) {
+				int lineBreak = (word << 6) + Long.numberOfTrailingZeros( bits );
+				return lineBreak + 1 < this.length ? lineBreak + 1 : -1;
+			}
+			pos = Math.min( (word + 1) << 6, this.indexedUpTo );
+		}
+		return -1;
+	}
+
+	private boolean isSet(long[] bits, int pos) {
+		if ( pos >= this.indexedUpTo ) {
+			this.indexUpTo( pos );
+		}
+		return (bits[pos >>> 6] & (1L << pos)) != 0;
+	}
+
+	private void indexUpTo(int pos) {
+		int end = Math.min( this.length, Math.max( pos + 1, this.indexedUpTo + CHUNK_SIZE ) );
+		for ( int i = this.indexedUpTo; i < end; ++i ) {
+			int word = i >>> 6;
+			if ( (i & 63) == 0 ) {
+				this.lineBreaks[word] = 0;
+				this.lineEnds[word] = 0;
+			}
+			int codePoint = this.str.codePoint( i );
+			if ( isLineBreak( codePoint ) ) {
+				this.lineBreaks[word] |= 1L << i;
+				this.lineEnds[word] |= 1L << i;
+			}
+			else if ( codePoint == '\r' && i + 1 < this.length && this.str.codePoint( i + 1 ) == '\n' ) {
+				this.lineEnds[word] |= 1L << i;
+			}
+		}
+		this.indexedUpTo = end;
+	}
+
+	private static boolean isLineBreak(int codePoint) {
+		switch ( codePoint ) {
+			case '\n':
+			case '\u0085':
+			case '\u2028':
+			case '\u2029':
+				return true;
+			default:
+				return false;
+		}
+	}
+
+}
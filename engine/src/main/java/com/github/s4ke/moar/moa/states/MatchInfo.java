@@ -35,6 +35,15 @@ public class MatchInfo {
 	private CharSeq wholeString;
 	private int pos = 0;
 	private int lastMatch = -1;
+	private final LineBreakIndex lineBreaks = new LineBreakIndex();
+
+	/**
+	 * resets the position and the last match, but keeps the token and the input
+	 */
+	public void reset() {
+		this.pos = 0;
+		this.lastMatch = -1;
+	}
 
 	public int getPos() {
 		return pos;
@@ -53,9 +62,33 @@ public class MatchInfo {
 	}
 
 	public void setWholeString(CharSeq wholeString) {
+		if ( wholeString != this.wholeString ) {
+			this.lineBreaks.reset( wholeString );
+		}
 		this.wholeString = wholeString;
 	}
 
+	/**
+	 * @return true if {@code ^} matches at the current position
+	 */
+	public boolean isAtLineStart() {
+		return this.lineBreaks.isLineStart( this.pos );
+	}
+
+	/**
+	 * @return true if {@code $} matches at the current position
+	 */
+	public boolean isAtLineEnd() {
+		return this.lineBreaks.isLineEnd( this.pos );
+	}
+
+	/**
+	 * @return the first position at or after the given one {@code ^} matches at or -1 if there is none
+	 */
+	public int nextLineStart(int from) {
+		return this.lineBreaks.nextLineStart( from );
+	}
+
 	public void setString(EfficientString string) {
 		this.string = string;
 	}
@@ -41,12 +41,29 @@ public class SetState implements State {
 	public final int length;
 	public final CodePointSet criterion;
 	public final String stringRepresentation;
+	public final int minCount;
+	public final int maxCount;
 
 	public SetState(int idx, int length, CodePointSet criterion, String stringRepresentation) {
+		this( idx, length, criterion, stringRepresentation, 1, 1 );
+	}
+
+	/**
+	 * creates a counted state, see {@link State#isCounted()}
+	 */
+	public SetState(
+			int idx,
+			int length,
+			CodePointSet criterion,
+			String stringRepresentation,
+			int minCount,
+			int maxCount) {
 		this.idx = idx;
 		this.length = length;
 		this.criterion = criterion;
 		this.stringRepresentation = stringRepresentation;
+		this.minCount = minCount;
+		this.maxCount = maxCount;
 	}
 
 	public String getStringRepresentation() {
@@ -99,6 +116,16 @@ public class SetState implements State {
 		return false;
 	}
 
+	@Override
+	public int getMinCount() {
+		return this.minCount;
+	}
+
+	@Override
+	public int getMaxCount() {
+		return this.maxCount;
+	}
+
 	@Override
 	public String toString() {
 		if(this.stringRepresentation != null) {
@@ -125,6 +152,9 @@ public class SetState implements State {
 		if ( length != setState.length ) {
 			return false;
 		}
+		if ( minCount != setState.minCount || maxCount != setState.maxCount ) {
+			return false;
+		}
 		return !(stringRepresentation != null ?
 				!stringRepresentation.equals( setState.stringRepresentation ) :
 				setState.stringRepresentation != null);
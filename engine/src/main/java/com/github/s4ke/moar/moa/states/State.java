@@ -34,6 +34,11 @@ import com.github.s4ke.moar.strings.EfficientString;
  */
 public interface State {
 
+	/**
+	 * see {@link #getMaxCount()}
+	 */
+	int UNBOUNDED_COUNT = -1;
+
 	/**
 	 * @return the idx of this state in the underlying {@link com.github.s4ke.moar.moa.edgegraph.EdgeGraph}.
 	 * This is an implementation detail that is needed for faster access.
@@ -87,4 +92,28 @@ public interface State {
 	 */
 	boolean isBound();
 
+	/**
+	 * @return how often the code point (or set) of this state has to be read in a row before
+	 * the state can be left. This is 1 for all states that don't stand for a counted repetition
+	 */
+	default int getMinCount() {
+		return 1;
+	}
+
+	/**
+	 * @return how often the code point (or set) of this state can be read in a row or {@link #UNBOUNDED_COUNT}.
+	 * This is 1 for all states that don't stand for a counted repetition
+	 */
+	default int getMaxCount() {
+		return 1;
+	}
+
+	/**
+	 * @return true if this state can read its code point (or set) repeatedly without an edge to itself, i.e.
+	 * it keeps count of how often it has been read in a row (see {@link #getMinCount()} and {@link #getMaxCount()})
+	 */
+	default boolean isCounted() {
+		return this.getMaxCount() != 1;
+	}
+
 }
@@ -0,0 +1,197 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa.states;
+
+import java.util.Arrays;
+
+import com.github.s4ke.moar.strings.EfficientString;
+import com.github.s4ke.moar.util.CharSeq;
+
+/**
+ * The contents of all {@link Variable}s of a single matcher, stored in primitive arrays
+ * indexed by the dense variable index of the {@link com.github.s4ke.moar.moa.edgegraph.FrozenEdgeGraph}.
+ * <p/>
+ * The contents of a variable are a region of the input that is currently matched against.
+ * A generation counter marks which slots have been written since the last {@link #reset()},
+ * so resetting the contents of all variables is O(1). Whether a variable is open is stored
+ * in a bitmask, so memory actions and consuming input only touch the affected variables.
+ *
+ * @author Martin Braun
+ */
+public final class VariableSlots {
+
+	//marks a variable without any contents (like an EfficientString without an underlying CharSeq)
+	private static final int NO_CONTENTS = -1;
+
+	private final int[] start;
+	private final int[] end;
+	private final int[] generation;
+	private final long[] open;
+	private int currentGeneration = 1;
+
+	public VariableSlots(int count) {
+		this.start = new int[count];
+		this.end = new int[count];
+		this.generation = new int[count];
+		this.open = new long[words( count )];
+	}
+
+	/**
+	 * @return the number of long words needed for a bitmask over the given number of variables
+	 */
+	public static int words(int count) {
+		return (count + 63) >>> 6;
+	}
+
+	public int size() {
+		return this.generation.length;
+	}
+
+	/**
+	 * closes all variables and resets their contents
+	 */
+	public void reset() {
+		if ( ++this.currentGeneration == 0 ) {
+			//overflow, make sure no stale slot can be mistaken for a current one
+			Arrays.fill( this.generation, 0 );
+			this.currentGeneration = 1;
+		}
+		Arrays.fill( this.open, 0L );
+	}
+
+	private void clearContents(int slot) {
+		this.generation[slot] = this.currentGeneration;
+		this.start[slot] = NO_CONTENTS;
+		this.end[slot] = 0;
+	}
+
+	/**
+	 * applies the memory actions for the variables 64 * word to 64 * word + 63.
+	 * The masks have to be disjoint.
+	 *
+	 * @param openMask the variables to open, their contents are reset
+	 * @param closeMask the variables to close
+	 * @param resetMask the variables to close, their contents are reset
+	 */
+	public void act(int word, long openMask, long closeMask, long resetMask) {
+		//important so we don't merge stuff like this x{a}x{b} into something like x{ab}
+		for ( long bits = openMask | resetMask; bits != 0; bits &= bits - 1 ) {
+			this.clearContents( (word << 6) + Long.numberOfTrailingZeros( bits ) );
+		}
+		this.open[word] = (this.open[word] & ~(closeMask | resetMask)) | openMask;
+	}
+
+	public boolean isOpen(int slot) {
+		return (this.open[slot >>> 6] & (1L << slot)) != 0;
+	}
+
+	/**
+	 * lets all open variables consume the given token
+	 */
+	public void consume(EfficientString token) {
+		for ( int word = 0; word < this.open.length; ++word ) {
+			for ( long bits = this.open[word]; bits != 0; bits &= bits - 1 ) {
+				this.consume( (word << 6) + Long.numberOfTrailingZeros( bits ), token );
+			}
+		}
+	}
+
+	/**
+	 * appends the token to the contents of the variable if it directly follows them,
+	 * overwrites the contents otherwise
+	 */
+	private void consume(int slot, EfficientString token) {
+		if ( this.generation[slot] != this.currentGeneration ) {
+			this.clearContents( slot );
+		}
+		int tokenStart;
+		int tokenEnd;
+		if ( token.getUnderlying() == null ) {
+			tokenStart = NO_CONTENTS;
+			tokenEnd = 0;
+		}
+		else {
+			tokenStart = token.getStart();
+			tokenEnd = token.getEnd();
+		}
+		if ( this.start[slot] == NO_CONTENTS || this.end[slot] != tokenStart ) {
+			this.start[slot] = tokenStart;
+		}
+		this.end[slot] = tokenEnd;
+	}
+	/**
+	 * @return the length of the contents of the variable in code points
+	 */
+	public int length(int slot) {
+		if ( this.generation[slot] != this.currentGeneration || this.start[slot] == NO_CONTENTS ) {
+			return 0;
+		}
+		return this.end[slot] - this.start[slot];
+	}
+
+	/**
+	 * @param whole the input the contents of the variable refer to
+	 *
+	 * @return true iff the contents of the variable are equal to the given token
+	 */
+	public boolean equalTo(int slot, CharSeq whole, EfficientString token) {
+		return this.equalTo( slot, whole, token, false );
+	}
+
+	/**
+	 * @param whole the input the contents of the variable refer to
+	 * @param ignoreCase whether the contents are compared with {@link CharSeq#regionMatchesIgnoreCase(int, CharSeq, int, int)}
+	 *
+	 * @return true iff the contents of the variable are equal to the given token
+	 */
+	public boolean equalTo(int slot, CharSeq whole, EfficientString token, boolean ignoreCase) {
+		int length = this.length( slot );
+		if ( length != token.codePointLength() ) {
+			return false;
+		}
+		if ( length == 0 ) {
+			return true;
+		}
+		return ignoreCase ?
+				whole.regionMatchesIgnoreCase( this.start[slot], token.getUnderlying(), token.getStart(), length ) :
+				whole.regionMatches( this.start[slot], token.getUnderlying(), token.getStart(), length );
+	}
+
+	/**
+	 * @param whole the input the contents of the variable refer to
+	 *
+	 * @return the contents of the variable as a String
+	 */
+	public String getContents(int slot, CharSeq whole) {
+		int length = this.length( slot );
+		if ( length == 0 ) {
+			return "";
+		}
+		if ( length == whole.codePointLength() ) {
+			return whole.toString();
+		}
+		return whole.subSequence( this.start[slot], this.end[slot] );
+	}
+
+}
@@ -28,9 +28,9 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.github.s4ke.moar.moa.states.BoundCondition;
 import com.github.s4ke.moar.moa.states.MatchInfo;
 import com.github.s4ke.moar.strings.EfficientString;
-import com.github.s4ke.moar.util.CharSeq;
 
 /**
  * Constants for the supported boundary checks
@@ -63,66 +63,13 @@ public final class BoundConstants {
 		}
 	}
 
-	public static Function<MatchInfo, Boolean> CARET_FN = (mi) -> {
-		// Perl does not match ^ at end of input even after newline
-		if ( mi.getPos() > mi.getWholeString().codePointLength() - 1 ) {
-			return false;
-		}
-		if ( mi.getPos() == 0 ) {
-			return true;
-		}
-		for ( EfficientString eff : BoundConstants.LINE_BREAK_CHARS ) {
-			int length = eff.codePointLength();
-			CharSeq whole = mi.getWholeString();
-			//zero-based position
-			if ( mi.getPos() >= length ) {
-				boolean eq = true;
-				int charPos = 0;
-				for ( int i = length; i > 0; --i ) {
-					if ( whole.codePoint( mi.getPos() - i ) != eff.codePoint( charPos++ ) ) {
-						eq = false;
-						break;
-					}
-				}
-				if ( eq ) {
-					return true;
-				}
-			}
-		}
-		return false;
-	};
+	public static final BoundCondition CARET_FN = BoundCondition.START_OF_LINE;
 
-	public static final Function<MatchInfo, Boolean> DOLLAR_FN = (mi) -> {
-		//we are at the end, so match the dollar sign
-		if ( mi.getPos() == mi.getWholeString().codePointLength() ) {
-			return true;
-		}
-		//check if the following stuff is the end of input
-		for ( EfficientString eff : BoundConstants.LINE_BREAK_CHARS ) {
-			int length = eff.codePointLength();
-			CharSeq whole = mi.getWholeString();
-			//zero-based position
-			if ( mi.getPos() + length <= mi.getWholeString().codePointLength() ) {
-				boolean eq = true;
-				for ( int i = 0; i < length; ++i ) {
-					if ( whole.codePoint( mi.getPos() + i ) != eff.codePoint( i ) ) {
-						eq = false;
-						break;
-					}
-				}
-				if ( eq ) {
-					return true;
-				}
-			}
-		}
-		return false;
-	};
+	public static final BoundCondition DOLLAR_FN = BoundCondition.END_OF_LINE;
 
-	public static final Function<MatchInfo, Boolean> END_OF_INPUT_FN = (mi) -> mi.getPos() == mi.getWholeString()
-			.codePointLength();
+	public static final BoundCondition END_OF_INPUT_FN = BoundCondition.END_OF_INPUT;
 
-	public static final Function<MatchInfo, Boolean> END_OF_LAST_MATCH_FN = (mi) ->
-			mi.getLastMatch() == -1 || mi.getPos() == mi.getLastMatch();
+	public static final BoundCondition END_OF_LAST_MATCH_FN = BoundCondition.END_OF_LAST_MATCH;
 
 	public static final Set<EfficientString> LINE_BREAK_CHARS = Arrays.asList(
 			"\n",
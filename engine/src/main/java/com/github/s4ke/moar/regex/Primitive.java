@@ -81,6 +81,13 @@ final class Primitive implements Regex {
 		edgeGraph.addEdgeWithDeterminismCheck( state, new EdgeGraph.Edge( MemoryAction.NO_OP, Moa.SNK ), this );
 	}
 
+	/**
+	 * @return a state that reads the symbol of this regex between minCount and maxCount times in a row
+	 */
+	State countedState(int idx, int minCount, int maxCount) {
+		return new BasicState( idx, this.symbol.symbol, minCount, maxCount );
+	}
+
 	@Override
 	public void calculateVariableOccurences(Map<String, Variable> variables, Supplier<Integer> varIdxSupplier) {
 		//no-op
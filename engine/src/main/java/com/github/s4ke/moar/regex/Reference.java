@@ -53,7 +53,8 @@ final class Reference implements Regex {
 
 	@Override
 	public Regex copy() {
-		return this;
+		//every copy needs a state of its own (see contributeStates), so we can't share this instance
+		return new Reference( this.reference );
 	}
 
 	@Override
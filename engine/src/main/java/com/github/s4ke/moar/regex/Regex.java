@@ -214,6 +214,21 @@ public interface Regex extends StateContributor, EdgeContributor, VariableOccure
 		return this.plus().or( Regex.eps() );
 	}
 
+	default Regex repeat(int count) {
+		return this.repeat( count, count );
+	}
+
+	/**
+	 * @param max the maximum number of repetitions or -1 if there is none
+	 */
+	default Regex repeat(int min, int max) {
+		return Repetition.of( this.copy(), min, max );
+	}
+
+	default Regex atLeast(int min) {
+		return this.repeat( min, -1 );
+	}
+
 	default Regex bind(String name) {
 		return new Binding( name, this.copy() );
 	}
@@ -230,10 +245,20 @@ public interface Regex extends StateContributor, EdgeContributor, VariableOccure
 		return this.and( any_() );
 	}
 
+	default Moa toMoa() {
+		return this.toMoa( false );
+	}
+
+	/**
+	 * @param caseInsensitive whether the Moa should fold the input with {@link com.github.s4ke.moar.util.CaseFolding}
+	 * while matching. The literals and sets of this Regex have to be folded already, e.g. by parsing it with
+	 * {@link com.github.s4ke.moar.regex.parser.RegexCompiler#compile(String, boolean)}
+	 */
 	//TODO: this can be done with a Stack and some clever handling
 	//instead of recursion (or with a Trampoline)
-	default Moa toMoa() {
+	default Moa toMoa(boolean caseInsensitive) {
 		Moa moa = new Moa();
+		moa.setCaseInsensitive( caseInsensitive );
 		Map<String, Variable> variables = new HashMap<>();
 		Set<State> states = new HashSet<>();
 		Map<Regex, Map<String, State>> selfRelevant = new HashMap<>();
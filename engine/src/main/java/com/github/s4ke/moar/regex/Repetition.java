@@ -0,0 +1,165 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.github.s4ke.moar.moa.Moa;
+import com.github.s4ke.moar.moa.edgegraph.EdgeGraph;
+import com.github.s4ke.moar.moa.edgegraph.MemoryAction;
+import com.github.s4ke.moar.moa.states.State;
+import com.github.s4ke.moar.moa.states.Variable;
+
+/**
+ * A regex that is repeated between min and max times, like {@code a{2,5}}. Single code points
+ * and sets are read by a single {@link State#isCounted() counted} state, so the size of the
+ * automaton doesn't depend on the counts. Everything else is unrolled into copies of the regex.
+ *
+ * @author Martin Braun
+ */
+final class Repetition implements Regex {
+
+	static final int UNBOUNDED = State.UNBOUNDED_COUNT;
+
+	private static final String SELF_RELEVANT_KEY = "";
+
+	private final Regex regex;
+	private final int min;
+	private final int max;
+	//the copies of the regex this stands for, null if it is read by a counted state
+	private final Regex unrolled;
+
+	private Repetition(Regex regex, int min, int max) {
+		this.regex = regex;
+		this.min = min;
+		this.max = max;
+		this.unrolled = regex instanceof Primitive || regex instanceof SetRegex ? null : unroll( regex, min, max );
+	}
+
+	/**
+	 * @param max the maximum number of repetitions or {@link #UNBOUNDED}
+	 */
+	static Regex of(Regex regex, int min, int max) {
+		if ( min < 0 || (max != UNBOUNDED && max < min) ) {
+			throw new IllegalArgumentException( "invalid repetition {" + min + "," + max + "} of " + regex );
+		}
+		if ( max == 0 ) {
+			return Regex.eps();
+		}
+		if ( min == 0 ) {
+			//the empty String is always handled by an epsilon edge
+			return max == UNBOUNDED ? regex.star() : of( regex, 1, max ).or( Regex.eps() );
+		}
+		if ( max == 1 ) {
+			return regex;
+		}
+		if ( min == 1 && max == UNBOUNDED ) {
+			return regex.plus();
+		}
+		return new Repetition( regex, min, max );
+	}
+
+	private static Regex unroll(Regex regex, int min, int max) {
+		Regex ret = regex.copy();
+		for ( int i = 1; i < min - (max == UNBOUNDED ? 1 : 0); ++i ) {
+			ret = ret.and( regex );
+		}
+		if ( max == UNBOUNDED ) {
+			return ret.and( regex.plus() );
+		}
+		//(r(r(r)?)?)? for the optional repetitions, so there is always just one way to go on
+		Regex optional = null;
+		for ( int i = min; i < max; ++i ) {
+			optional = (optional == null ? regex : regex.and( optional )).or( Regex.eps() );
+		}
+		return optional == null ? ret : ret.and( optional );
+	}
+
+	private State countedState(int idx) {
+		if ( this.regex instanceof Primitive ) {
+			return ((Primitive) this.regex).countedState( idx, this.min, this.max );
+		}
+		return ((SetRegex) this.regex).countedState( idx, this.min, this.max );
+	}
+
+	@Override
+	public String toString() {
+		String counts;
+		if ( this.min == this.max ) {
+			counts = String.valueOf( this.min );
+		}
+		else {
+			counts = this.min + "," + (this.max == UNBOUNDED ? "" : String.valueOf( this.max ));
+		}
+		return this.regex.toString() + "{" + counts + "}";
+	}
+
+	@Override
+	public Regex copy() {
+		return new Repetition( this.regex.copy(), this.min, this.max );
+	}
+
+	@Override
+	public void contributeStates(
+			Map<String, Variable> variables,
+			Set<State> states,
+			Map<Regex, Map<String, State>> selfRelevant,
+			Supplier<Integer> idxSupplier) {
+		if ( this.unrolled != null ) {
+			this.unrolled.contributeStates( variables, states, selfRelevant, idxSupplier );
+			return;
+		}
+		State state = this.countedState( idxSupplier.get() );
+		states.add( state );
+		states.add( Moa.SRC );
+		states.add( Moa.SNK );
+		selfRelevant.put( this, new HashMap<>() );
+		selfRelevant.get( this ).put( SELF_RELEVANT_KEY, state );
+	}
+
+	@Override
+	public void contributeEdges(
+			EdgeGraph edgeGraph,
+			Map<String, Variable> variables,
+			Set<State> states,
+			Map<Regex, Map<String, State>> selfRelevant) {
+		if ( this.unrolled != null ) {
+			this.unrolled.contributeEdges( edgeGraph, variables, states, selfRelevant );
+			return;
+		}
+		State state = selfRelevant.get( this ).get( SELF_RELEVANT_KEY );
+		edgeGraph.addEdgeWithDeterminismCheck( Moa.SRC, new EdgeGraph.Edge( MemoryAction.NO_OP, state ), this );
+		edgeGraph.addEdgeWithDeterminismCheck( state, new EdgeGraph.Edge( MemoryAction.NO_OP, Moa.SNK ), this );
+	}
+
+	@Override
+	public void calculateVariableOccurences(Map<String, Variable> variables, Supplier<Integer> varIdxSupplier) {
+		//the copies share the variables of the regex, so they are only numbered once
+		this.regex.calculateVariableOccurences( variables, varIdxSupplier );
+	}
+
+}
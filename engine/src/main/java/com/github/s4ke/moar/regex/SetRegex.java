@@ -85,6 +85,13 @@ class SetRegex implements Regex {
 		selfRelevant.get( this ).put( SELF_RELEVANT_KEY, state );
 	}
 
+	/**
+	 * @return a state that reads a code point of this set between minCount and maxCount times in a row
+	 */
+	State countedState(int idx, int minCount, int maxCount) {
+		return new SetState( idx, 1, this.setDescriptor, this.stringRepresentation, minCount, maxCount );
+	}
+
 	@Override
 	public void calculateVariableOccurences(
 			Map<String, Variable> variables, Supplier<Integer> varIdxSupplier) {
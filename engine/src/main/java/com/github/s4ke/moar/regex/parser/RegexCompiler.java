@@ -47,6 +47,15 @@ public final class RegexCompiler {
 	}
 
 	public static Regex compile(String regexStr) {
+		return compile( regexStr, false );
+	}
+
+	/**
+	 * @param caseInsensitive whether the literals and sets of the Regex should be folded with
+	 * {@link com.github.s4ke.moar.util.CaseFolding}, the resulting Regex then has to be
+	 * turned into a Moa with {@link Regex#toMoa(boolean)}
+	 */
+	public static Regex compile(String regexStr, boolean caseInsensitive) {
 		StringBuilder additionalMessage = new StringBuilder();
 		RegexParser parser = regexParser( regexStr );
 		parser.getErrorListeners().clear();
@@ -87,7 +96,7 @@ public final class RegexCompiler {
 		RegexGroupNameListener nameListener = new RegexGroupNameListener();
 		walker.walk( nameListener, regexTree );
 
-		RegexTreeListener listener = new RegexTreeListener( nameListener.getGroupNames() );
+		RegexTreeListener listener = new RegexTreeListener( nameListener.getGroupNames(), caseInsensitive );
 		walker.walk( listener, regexTree );
 
 		return listener.finalRegex();
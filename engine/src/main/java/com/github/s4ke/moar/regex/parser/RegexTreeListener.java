@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.Stack;
 
 import com.github.s4ke.moar.regex.Regex;
+import com.github.s4ke.moar.util.CaseFolding;
 import com.github.s4ke.moar.util.RangeRep;
 
 /**
@@ -42,10 +43,19 @@ public class RegexTreeListener extends RegexBaseListener implements RegexListene
 	private final Stack<Regex> regexStack = new Stack<>();
 	private final Stack<Integer> groupCountStack = new Stack<>();
 	private final Map<Integer, String> groupNames;
+	private final boolean caseInsensitive;
 	private int groupCount = 0;
 
 	public RegexTreeListener(Map<Integer, String> groupNames) {
+		this( groupNames, false );
+	}
+
+	/**
+	 * @param caseInsensitive whether the literals and sets should be folded with {@link CaseFolding}
+	 */
+	public RegexTreeListener(Map<Integer, String> groupNames, boolean caseInsensitive) {
 		this.groupNames = groupNames;
+		this.caseInsensitive = caseInsensitive;
 	}
 
 	public Regex finalRegex() {
@@ -169,6 +179,24 @@ public class RegexTreeListener extends RegexBaseListener implements RegexListene
 		this.regexStack.push( regex );
 	}
 
+	@Override
+	public void exitRepetition(RegexParser.RepetitionContext ctx) {
+		int min = Integer.parseInt( ctx.minCount().getText() );
+		int max;
+		if ( ctx.countSeparator() == null ) {
+			max = min;
+		}
+		else if ( ctx.maxCount() == null ) {
+			max = -1;
+		}
+		else {
+			max = Integer.parseInt( ctx.maxCount().getText() );
+		}
+		Regex regex = this.regexStack.pop();
+		regex = regex.repeat( min, max );
+		this.regexStack.push( regex );
+	}
+
 	@Override
 	public void exitElementaryRegex(RegexParser.ElementaryRegexContext ctx) {
 		if ( ctx.ANY() != null ) {
@@ -176,7 +204,8 @@ public class RegexTreeListener extends RegexBaseListener implements RegexListene
 			this.regexStack.push( regex );
 		}
 		else if ( ctx.charOrEscaped() != null ) {
-			Regex regex = Regex.str( getCh( ctx.charOrEscaped() ) );
+			String ch = getCh( ctx.charOrEscaped() );
+			Regex regex = Regex.str( this.caseInsensitive ? CaseFolding.fold( ch ) : ch );
 			this.regexStack.push( regex );
 		}
 	}
@@ -220,7 +249,7 @@ public class RegexTreeListener extends RegexBaseListener implements RegexListene
 
 	@Override
 	public void exitPositiveSet(RegexParser.PositiveSetContext ctx) {
-		this.regexStack.push( Regex.set( ranges( ctx.setItems() ) ) );
+		this.regexStack.push( Regex.set( this.foldedRanges( ctx.setItems() ) ) );
 	}
 
 	public static RangeRep[] ranges(RegexParser.SetItemsContext setItems) {
@@ -244,9 +273,15 @@ public class RegexTreeListener extends RegexBaseListener implements RegexListene
 		return rangesList.toArray( ranges );
 	}
 
+	private RangeRep[] foldedRanges(RegexParser.SetItemsContext setItems) {
+		RangeRep[] ranges = ranges( setItems );
+		return this.caseInsensitive ? CaseFolding.close( ranges ) : ranges;
+	}
+
 	@Override
 	public void exitNegativeSet(RegexParser.NegativeSetContext ctx) {
-		this.regexStack.push( Regex.negativeSet( ranges( ctx.setItems() ) ) );
+		//the case variants have to be added before negating, [^a] doesn't match A either
+		this.regexStack.push( Regex.negativeSet( this.foldedRanges( ctx.setItems() ) ) );
 	}
 
 	@Override
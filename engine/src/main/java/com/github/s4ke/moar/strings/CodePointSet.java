@@ -24,10 +24,14 @@
 package com.github.s4ke.moar.strings;
 
 import java.util.AbstractSet;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.SortedSet;
 
 import com.github.s4ke.moar.util.RangeRep;
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
 import com.google.common.collect.TreeRangeSet;
 
 /**
@@ -37,14 +41,19 @@ public class CodePointSet {
 
 	private final Set<Integer> set;
 	private final RangeRep range;
+	/**
+	 * the code points of the (positive) {@link Set} this set was built from, as negative sets can't be iterated
+	 */
+	private final Set<Integer> members;
 
-	private CodePointSet(Set<Integer> set, RangeRep ranges) {
+	private CodePointSet(Set<Integer> set, RangeRep ranges, Set<Integer> members) {
 		this.set = set;
 		this.range = ranges;
+		this.members = members;
 	}
 
 	public static CodePointSet range(RangeRep ranges) {
-		return new CodePointSet( null, ranges );
+		return new CodePointSet( null, ranges, null );
 	}
 
 	public static CodePointSet range(RangeRep... ranges) {
@@ -52,11 +61,11 @@ public class CodePointSet {
 		for ( RangeRep rangeRep : ranges ) {
 			rangeSet.addAll( rangeRep.getRangeSet() );
 		}
-		return new CodePointSet( null, RangeRep.of( rangeSet ) );
+		return new CodePointSet( null, RangeRep.of( rangeSet ), null );
 	}
 
 	public static CodePointSet set(Set<Integer> set) {
-		return new CodePointSet( set, null );
+		return new CodePointSet( set, null, set );
 	}
 
 	public CodePointSet negative() {
@@ -83,7 +92,7 @@ public class CodePointSet {
 				}
 			};
 		}
-		return new CodePointSet( negativeSet, negativeRange );
+		return new CodePointSet( negativeSet, negativeRange, this.members );
 	}
 
 	public boolean intersects(int codePoint) {
@@ -98,6 +107,81 @@ public class CodePointSet {
 		}
 	}
 
+	/**
+	 * sets the bits of all code points in [0, limit) that are part of this set
+	 */
+	public void addTo(BitSet bits, int limit) {
+		if ( this.range != null ) {
+			for ( Range<Integer> cur : this.range.getRangeSet().asRanges() ) {
+				long from = 0;
+				if ( cur.hasLowerBound() ) {
+					from = cur.lowerBoundType() == BoundType.CLOSED ? cur.lowerEndpoint() : cur.lowerEndpoint() + 1L;
+				}
+				long to = limit;
+				if ( cur.hasUpperBound() ) {
+					to = cur.upperBoundType() == BoundType.CLOSED ? cur.upperEndpoint() + 1L : cur.upperEndpoint();
+				}
+				from = Math.max( from, 0 );
+				to = Math.min( to, limit );
+				if ( from < to ) {
+					bits.set( (int) from, (int) to );
+				}
+			}
+		}
+		else if ( this.set != null ) {
+			//negative sets can't be iterated, so we have to check every code point
+			for ( int codePoint = 0; codePoint < limit; ++codePoint ) {
+				if ( this.set.contains( codePoint ) ) {
+					bits.set( codePoint );
+				}
+			}
+		}
+		else {
+			throw new AssertionError();
+		}
+	}
+
+	/**
+	 * adds every code point in (0, limit) that is part of this set while its predecessor isn't
+	 * (or the other way round) to the given boundaries
+	 */
+	public void addBoundariesTo(SortedSet<Integer> boundaries, int limit) {
+		if ( this.range != null ) {
+			for ( Range<Integer> cur : this.range.getRangeSet().asRanges() ) {
+				if ( cur.hasLowerBound() ) {
+					addBoundary(
+							boundaries,
+							cur.lowerBoundType() == BoundType.CLOSED ? cur.lowerEndpoint() : cur.lowerEndpoint() + 1L,
+							limit
+					);
+				}
+				if ( cur.hasUpperBound() ) {
+					addBoundary(
+							boundaries,
+							cur.upperBoundType() == BoundType.CLOSED ? cur.upperEndpoint() + 1L : cur.upperEndpoint(),
+							limit
+					);
+				}
+			}
+		}
+		else if ( this.members != null ) {
+			//a set and its negation change at the same code points
+			for ( Integer member : this.members ) {
+				addBoundary( boundaries, member, limit );
+				addBoundary( boundaries, member + 1L, limit );
+			}
+		}
+		else {
+			throw new AssertionError();
+		}
+	}
+
+	private static void addBoundary(SortedSet<Integer> boundaries, long boundary, int limit) {
+		if ( boundary > 0 && boundary < limit ) {
+			boundaries.add( (int) boundary );
+		}
+	}
+
 	public boolean intersects(CodePointSet other) {
 		if ( this.set != null ) {
 			if ( other.set != null ) {
@@ -136,6 +220,29 @@ public class CodePointSet {
 		}
 	}
 
+	/**
+	 * two sets are equal if they consist of the same ranges. Sets that are
+	 * backed by a {@link Set} are only equal to themselves as negative sets can't be compared
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if ( this == o ) {
+			return true;
+		}
+		if ( o == null || getClass() != o.getClass() ) {
+			return false;
+		}
+
+		CodePointSet that = (CodePointSet) o;
+
+		return this.range != null && this.range.equals( that.range );
+	}
+
+	@Override
+	public int hashCode() {
+		return this.range != null ? this.range.hashCode() : System.identityHashCode( this );
+	}
+
 	private static boolean intersects(Set<Integer> fst, Set<Integer> snd) {
 		for ( Integer f : fst ) {
 			if ( snd.contains( f ) ) {
@@ -120,12 +120,8 @@ public class EfficientString implements Comparable<EfficientString> {
 		if ( ownLength != str.codePointLength() ) {
 			return false;
 		}
-		for ( int i = 0; i < ownLength; ++i ) {
-			if ( this.codePoint( i ) != str.codePoint( i ) ) {
-				return false;
-			}
-		}
-		return true;
+		return ownLength == 0 ||
+				this.underlying.regionMatches( this.start, str.underlying, str.start, ownLength );
 	}
 
 	@Override
@@ -142,6 +138,27 @@ public class EfficientString implements Comparable<EfficientString> {
 		return this.end - start;
 	}
 
+	/**
+	 * @return the underlying {@link CharSeq} or null if this is the empty String
+	 */
+	public CharSeq getUnderlying() {
+		return this.underlying;
+	}
+
+	/**
+	 * @return the start of this String in the underlying {@link CharSeq} (inclusive)
+	 */
+	public int getStart() {
+		return this.start;
+	}
+
+	/**
+	 * @return the end of this String in the underlying {@link CharSeq} (exclusive)
+	 */
+	public int getEnd() {
+		return this.end;
+	}
+
 	/**
 	 * @param index the nth codepoint
 	 */
@@ -0,0 +1,95 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Range;
+
+/**
+ * Case folding for case-insensitive patterns. Just like {@link java.util.regex.Pattern#CASE_INSENSITIVE}
+ * (without UNICODE_CASE) only the US-ASCII letters are folded: patterns are folded to lower case
+ * when they are parsed and the input is folded the same way while matching.
+ *
+ * @author Martin Braun
+ */
+public final class CaseFolding {
+
+	private static final int CASE_DIFFERENCE = 'a' - 'A';
+
+	private CaseFolding() {
+		//can't touch this!
+	}
+
+	/**
+	 * @return the lower case variant of the given code point if it is an upper case US-ASCII letter,
+	 * the code point itself otherwise
+	 */
+	public static int fold(int codePoint) {
+		return codePoint >= 'A' && codePoint <= 'Z' ? codePoint + CASE_DIFFERENCE : codePoint;
+	}
+
+	/**
+	 * @return the given String with all its upper case US-ASCII letters in lower case
+	 */
+	public static String fold(String str) {
+		return new String( str.codePoints().map( CaseFolding::fold ).toArray(), 0, str.codePointCount( 0, str.length() ) );
+	}
+
+	/**
+	 * @return the upper case variant of the given code point if it is a lower case US-ASCII letter, -1 otherwise
+	 */
+	public static int upperCaseVariant(int codePoint) {
+		return codePoint >= 'a' && codePoint <= 'z' ? codePoint - CASE_DIFFERENCE : -1;
+	}
+
+	/**
+	 * @return the given ranges together with the other case variants of all the US-ASCII letters in them
+	 */
+	public static RangeRep[] close(RangeRep... ranges) {
+		List<RangeRep> ret = new ArrayList<>( ranges.length );
+		Collections.addAll( ret, ranges );
+		for ( RangeRep range : ranges ) {
+			addVariants( range, 'a', 'z', -CASE_DIFFERENCE, ret );
+			addVariants( range, 'A', 'Z', CASE_DIFFERENCE, ret );
+		}
+		return ret.toArray( new RangeRep[ret.size()] );
+	}
+
+	private static void addVariants(RangeRep range, int from, int to, int difference, List<RangeRep> ret) {
+		for ( Range<Integer> letters : range.getRangeSet().subRangeSet( Range.closed( from, to ) ).asRanges() ) {
+			//canonical ranges of integers are closed below and open above
+			Range<Integer> canonical = letters.canonical( DiscreteDomain.integers() );
+			int lower = canonical.lowerEndpoint();
+			int upper = canonical.upperEndpoint() - 1;
+			if ( lower <= upper ) {
+				ret.add( RangeRep.of( lower + difference, upper + difference ) );
+			}
+		}
+	}
+
+}
@@ -33,6 +33,35 @@ public interface CharSeq {
 
 	String subSequence(int start, int end);
 
+	/**
+	 * compares two regions of code points, implementations that have access to
+	 * their backing storage should override this with a bulk comparison
+	 *
+	 * @return true iff the length code points starting at offset are equal to the
+	 * length code points starting at otherOffset in other
+	 */
+	default boolean regionMatches(int offset, CharSeq other, int otherOffset, int length) {
+		for ( int i = 0; i < length; ++i ) {
+			if ( this.codePoint( offset + i ) != other.codePoint( otherOffset + i ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * same as {@link #regionMatches(int, CharSeq, int, int)} but the code points are compared
+	 * after folding them with {@link CaseFolding}
+	 */
+	default boolean regionMatchesIgnoreCase(int offset, CharSeq other, int otherOffset, int length) {
+		for ( int i = 0; i < length; ++i ) {
+			if ( CaseFolding.fold( this.codePoint( offset + i ) ) != CaseFolding.fold( other.codePoint( otherOffset + i ) ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	String toString();
 }
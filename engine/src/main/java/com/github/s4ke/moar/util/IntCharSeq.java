@@ -27,15 +27,39 @@ package com.github.s4ke.moar.util;
  * @author Martin Braun
  */
 public class IntCharSeq implements CharSeq {
-	private final int[] codePoints;
+
+	private int[] codePoints;
+	private int length;
 
 	public IntCharSeq(CharSequence seq) {
-		this.codePoints = seq.codePoints().toArray();
+		this( seq.codePoints().toArray() );
+	}
+
+	/**
+	 * @param codePoints the code points of this sequence, the array is not copied
+	 */
+	public IntCharSeq(int[] codePoints) {
+		this.reuse( codePoints, codePoints.length );
+	}
+
+	/**
+	 * makes this sequence consist of the first length code points of the given array,
+	 * so a buffer that is filled again for every input can be matched without wrapping it anew
+	 *
+	 * @param codePoints the code points of this sequence, the array is not copied
+	 */
+	public IntCharSeq reuse(int[] codePoints, int length) {
+		if ( length < 0 || length > codePoints.length ) {
+			throw new IndexOutOfBoundsException( "length: " + length + ", codePoints: " + codePoints.length );
+		}
+		this.codePoints = codePoints;
+		this.length = length;
+		return this;
 	}
 
 	@Override
 	public int codePointLength() {
-		return this.codePoints.length;
+		return this.length;
 	}
 
 	/**
@@ -46,6 +70,22 @@ public class IntCharSeq implements CharSeq {
 		return this.codePoints[index];
 	}
 
+	@Override
+	public boolean regionMatches(int offset, CharSeq other, int otherOffset, int length) {
+		if ( !(other instanceof IntCharSeq) ) {
+			return CharSeq.super.regionMatches( offset, other, otherOffset, length );
+		}
+		IntCharSeq otherSeq = (IntCharSeq) other;
+		int[] own = this.codePoints;
+		int[] others = otherSeq.codePoints;
+		for ( int i = 0; i < length; ++i ) {
+			if ( own[offset + i] != others[otherOffset + i] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public String subSequence(int start, int end) {
 		if ( end - start > 0 ) {
@@ -60,7 +100,7 @@ public class IntCharSeq implements CharSeq {
 
 	@Override
 	public String toString() {
-		return new String( this.codePoints, 0, this.codePoints.length );
+		return new String( this.codePoints, 0, this.length );
 	}
 
 }
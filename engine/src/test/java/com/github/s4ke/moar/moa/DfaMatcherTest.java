@@ -0,0 +1,136 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.moa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.moa.edgegraph.Dfa;
+import com.github.s4ke.moar.regex.JavaMoaEqualityTest;
+import com.github.s4ke.moar.util.IntCharSeq;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class DfaMatcherTest {
+
+	private static final String ALPHABET = "abc\nä ";
+
+	private static final String TEXT = "From fairest creatures we desire increase,\n" +
+			"That thereby beauty's rose might never die,\n" +
+			"Thy self thy foe, to thy sweet self too cruel:\n" +
+			"Within thine own bud buriest thy content,\n" +
+			"shall besiege thy brow";
+
+	private static final String[] REGEXES = new String[] {
+			"abc",
+			"a+b",
+			"(?:a|b)*c",
+			"[ab]c?",
+			"(?:ab)+",
+			"ä| b",
+			"[^a]+",
+			"\\s\\w",
+			"[^ab]\\S",
+			".ä",
+			"a(?:ac)?",
+			"(?:cb+aa)?a",
+			"(?:abc)+d",
+			"a(?:b|c)+\\s"
+	};
+
+	@Test
+	public void testSameMatchesAsInterpreter() {
+		List<String> regexes = new ArrayList<>();
+		for ( String regex : REGEXES ) {
+			regexes.add( regex );
+		}
+		for ( String regex : JavaMoaEqualityTest.REGEX_TO_CHECK ) {
+			regexes.add( regex );
+		}
+		List<String> inputs = strings( ALPHABET, 5 );
+		inputs.add( TEXT );
+
+		int withDfa = 0;
+		for ( String regex : regexes ) {
+			Moa moa = moa( regex );
+			Dfa dfa = moa.getFrozenEdges().getDfa();
+			if ( dfa == null ) {
+				//there is nothing to compare
+				continue;
+			}
+			++withDfa;
+			for ( String input : inputs ) {
+				String message = regex + " " + input;
+				MoaMatcher tableMatcher = new DfaMatcher( dfa, new IntCharSeq( input ) );
+				MoaMatcher interpreterMatcher = new MoaMatcherImpl( moa.getFrozenEdges(), new IntCharSeq( input ) );
+				boolean found;
+				do {
+					found = interpreterMatcher.nextMatch();
+					assertEquals( message, found, tableMatcher.nextMatch() );
+					if ( found ) {
+						assertEquals( message, interpreterMatcher.getStart(), tableMatcher.getStart() );
+						assertEquals( message, interpreterMatcher.getEnd(), tableMatcher.getEnd() );
+					}
+				}
+				//empty matches don't advance
+				while ( found && interpreterMatcher.getStart() != interpreterMatcher.getEnd() );
+
+				tableMatcher.reuse( input );
+				interpreterMatcher.reuse( input );
+				assertEquals( message, interpreterMatcher.matches(), tableMatcher.matches() );
+			}
+		}
+		//the literals of the corpus are run on the table as well
+		assertTrue( withDfa > REGEXES.length );
+		assertNull( moa( "(c)?old" ).getFrozenEdges().getDfa() );
+	}
+
+	private static Moa moa(String regex) {
+		Moa[] ret = new Moa[1];
+		MoaPattern.compile( regex ).accessMoa( moa -> ret[0] = moa );
+		return ret[0];
+	}
+
+	private static List<String> strings(String alphabet, int maxLength) {
+		List<String> ret = new ArrayList<>();
+		ret.add( "" );
+		for ( int start = 0; start < ret.size(); ++start ) {
+			String cur = ret.get( start );
+			if ( cur.codePointCount( 0, cur.length() ) < maxLength ) {
+				alphabet.codePoints().forEach( cp -> ret.add( new StringBuilder( cur ).appendCodePoint( cp ).toString() ) );
+			}
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.MoaUtf8Matcher;
+import com.github.s4ke.moar.util.CharSeq;
+import com.github.s4ke.moar.util.IntCharSeq;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Makes sure that {@link MoaMatcher#nextMatch()}, {@link MoaMatcher#matches()},
+ * {@link MoaMatcher#contains()}, {@link MoaMatcher#count()}, {@link MoaMatcher#reuse(CharSeq)}
+ * and {@link MoaUtf8Matcher#reuse(byte[], int, int)} don't allocate anything
+ * on a matcher that has already been used once.
+ *
+ * @author Martin Braun
+ */
+public class AllocationTest {
+
+	private static final String[] REGEX_TO_CHECK = new String[] {
+			//interpreter
+			"th(e)\\1+",
+			"[A-Z]([a-z])+",
+			"f((riend)|(oe))",
+			"^a(?<x>b|c)\\k<x>$",
+			"\\Ga",
+			"usd [\\+\\-]?[0-9]+\\.[0-9][0-9]\\z",
+			//table with the bit-parallel search
+			"[A-Z][a-z]+",
+			"f(?:riend|oe)",
+			"[0-9]+\\.[0-9]{2}",
+			"[a-z]+€",
+			//table with more states than the bit-parallel search can handle
+			"(?:[a-z][0-9]){40}|[A-Z]+"
+	};
+
+	private static final String INPUT = "From fairest creatures we desire increase, thee theee\n" +
+			"abb usd +1234.00 friend foe aaa\nacc\r\nabc and then Some More Words, naïve €";
+
+	private static final int WARM_UP_RUNS = 1000;
+	private static final int MAX_WARM_UPS = 100;
+
+	@Test
+	public void testNoAllocationsAfterFirstUse() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue( bean instanceof com.sun.management.ThreadMXBean );
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue( threadBean.isThreadAllocatedMemorySupported() );
+		threadBean.setThreadAllocatedMemoryEnabled( true );
+		CompilationMXBean compilationBean = ManagementFactory.getCompilationMXBean();
+		Assume.assumeTrue( compilationBean != null && compilationBean.isCompilationTimeMonitoringSupported() );
+
+		long threadId = Thread.currentThread().getId();
+		String[] strings = new String[] {INPUT, "abb", ""};
+		CharSeq[] inputs = new CharSeq[strings.length];
+		byte[][] utf8Inputs = new byte[strings.length][];
+		for ( int i = 0; i < strings.length; ++i ) {
+			inputs[i] = new IntCharSeq( strings[i] );
+			utf8Inputs[i] = strings[i].getBytes( StandardCharsets.UTF_8 );
+		}
+
+		for ( String regex : REGEX_TO_CHECK ) {
+			MoaPattern pattern = MoaPattern.compile( regex );
+			MoaMatcher matcher = pattern.matcher( inputs[0] );
+			MoaUtf8Matcher utf8Matcher = pattern.matcher( utf8Inputs[0], 0, utf8Inputs[0].length );
+
+			//first use is allowed to allocate (and warms up the code). A method that is
+			//compiled or deoptimized while we measure can allocate, so go on until the JIT is done
+			long compilationTime = -1;
+			for ( int warmUp = 0; warmUp < MAX_WARM_UPS && compilationTime != compilationBean.getTotalCompilationTime(); ++warmUp ) {
+				compilationTime = compilationBean.getTotalCompilationTime();
+				for ( int i = 0; i < WARM_UP_RUNS; ++i ) {
+					this.run( matcher, inputs );
+					this.run( utf8Matcher, utf8Inputs );
+				}
+			}
+
+			//the measurement itself allocates a little, so take that into account
+			long calibrationStart = threadBean.getThreadAllocatedBytes( threadId );
+			long calibrationEnd = threadBean.getThreadAllocatedBytes( threadId );
+			long overhead = calibrationEnd - calibrationStart;
+
+			long start = threadBean.getThreadAllocatedBytes( threadId );
+			int matches = 0;
+			for ( int i = 0; i < 100; ++i ) {
+				matches += this.run( matcher, inputs );
+			}
+			long end = threadBean.getThreadAllocatedBytes( threadId );
+			assertEquals( regex + " allocated while matching " + matches + " times", overhead, end - start );
+
+			start = threadBean.getThreadAllocatedBytes( threadId );
+			matches = 0;
+			for ( int i = 0; i < 100; ++i ) {
+				matches += this.run( utf8Matcher, utf8Inputs );
+			}
+			end = threadBean.getThreadAllocatedBytes( threadId );
+			assertEquals( regex + " allocated while matching " + matches + " times on UTF-8", overhead, end - start );
+		}
+	}
+
+	private int run(MoaMatcher matcher, CharSeq[] inputs) {
+		int matches = 0;
+		for ( CharSeq input : inputs ) {
+			matcher.reuse( input );
+			matches += this.run( matcher );
+		}
+		return matches;
+	}
+
+	private int run(MoaUtf8Matcher matcher, byte[][] inputs) {
+		int matches = 0;
+		for ( byte[] input : inputs ) {
+			matcher.reuse( input, 0, input.length );
+			matches += this.run( matcher );
+		}
+		return matches;
+	}
+
+	private int run(MoaMatcher matcher) {
+		int matches = 0;
+		while ( matcher.nextMatch() ) {
+			++matches;
+		}
+		if ( matcher.matches() ) {
+			++matches;
+		}
+		if ( matcher.contains() ) {
+			++matches;
+		}
+		return matches + matcher.count();
+	}
+
+}
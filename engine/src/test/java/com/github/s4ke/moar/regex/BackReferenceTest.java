@@ -0,0 +1,108 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import java.util.Random;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.util.CharSeq;
+import com.github.s4ke.moar.util.IntCharSeq;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class BackReferenceTest {
+
+	@Test
+	public void testLongCaptures() {
+		String capture = randomAb( 5000, 1 );
+		MoaPattern pattern = MoaPattern.compile( "(?<x>[ab]+)c\\k<x>" );
+		assertTrue( pattern.matcher( capture + "c" + capture ).matches() );
+
+		//mismatch in the last code point
+		String almost = capture.substring( 0, capture.length() - 1 ) + (capture.endsWith( "a" ) ? "b" : "a");
+		assertFalse( pattern.matcher( capture + "c" + almost ).matches() );
+
+		//mismatch in the first code point
+		almost = (capture.startsWith( "a" ) ? "b" : "a") + capture.substring( 1 );
+		assertFalse( pattern.matcher( capture + "c" + almost ).matches() );
+
+		MoaMatcher matcher = MoaPattern.compile( "c(?<x>[ab]+)c\\k<x>" ).matcher( "xc" + capture + "c" + capture + "c" );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 1, matcher.getStart() );
+		assertEquals( 2 + 2 * capture.length() + 1, matcher.getEnd() );
+		assertEquals( capture, matcher.getVariableContent( "x" ) );
+	}
+
+	@Test
+	public void testRegionMatches() {
+		String str = randomAb( 1000, 2 );
+		IntCharSeq seq = new IntCharSeq( str + str + "x" );
+		CharSeq plain = new CharSeq() {
+
+			private final IntCharSeq delegate = new IntCharSeq( str );
+
+			@Override
+			public int codePointLength() {
+				return this.delegate.codePointLength();
+			}
+
+			@Override
+			public int codePoint(int index) {
+				return this.delegate.codePoint( index );
+			}
+
+			@Override
+			public String subSequence(int start, int end) {
+				return this.delegate.subSequence( start, end );
+			}
+
+		};
+		for ( int length : new int[] {0, 1, 255, 256, 1000} ) {
+			assertTrue( seq.regionMatches( 0, seq, str.length(), length ) );
+			assertTrue( seq.regionMatches( 0, plain, 0, length ) );
+			assertTrue( plain.regionMatches( 0, seq, str.length(), length ) );
+		}
+		//only the last code point differs
+		assertFalse( seq.regionMatches( 1, seq, str.length() + 1, str.length() ) );
+		assertFalse( seq.regionMatches( str.length() - 10, seq, 2 * str.length() - 10, 11 ) );
+	}
+
+	private static String randomAb(int length, long seed) {
+		Random random = new Random( seed );
+		StringBuilder builder = new StringBuilder( length );
+		for ( int i = 0; i < length; ++i ) {
+			builder.append( random.nextBoolean() ? 'a' : 'b' );
+		}
+		return builder.toString();
+	}
+
+}
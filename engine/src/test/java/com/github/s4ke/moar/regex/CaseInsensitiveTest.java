@@ -0,0 +1,173 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.NonDeterministicException;
+import com.github.s4ke.moar.moa.edgegraph.FrozenEdgeGraph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Martin Braun
+ */
+public class CaseInsensitiveTest {
+
+	private static MoaPattern compile(String regex) {
+		return MoaPattern.compile( regex, MoaPattern.CASE_INSENSITIVE );
+	}
+
+	private static FrozenEdgeGraph frozen(String regex) {
+		FrozenEdgeGraph[] edges = new FrozenEdgeGraph[1];
+		compile( regex ).accessMoa( moa -> edges[0] = moa.getFrozenEdges() );
+		return edges[0];
+	}
+
+	@Test
+	public void testLiterals() {
+		MoaPattern pattern = compile( "error" );
+		assertTrue( pattern.matcher( "error" ).matches() );
+		assertTrue( pattern.matcher( "ERROR" ).matches() );
+		assertTrue( pattern.matcher( "ErRoR" ).matches() );
+		assertFalse( pattern.matcher( "errors" ).matches() );
+
+		MoaMatcher matcher = pattern.matcher( "no Error here, but an ERROR there" );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 3, matcher.getStart() );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 22, matcher.getStart() );
+		assertFalse( matcher.nextMatch() );
+
+		//only US-ASCII letters are folded, like in java.util.regex without UNICODE_CASE
+		assertFalse( compile( "ä" ).matcher( "Ä" ).matches() );
+		assertFalse( MoaPattern.compile( "error" ).matcher( "ERROR" ).matches() );
+	}
+
+	@Test
+	public void testSets() {
+		MoaPattern pattern = compile( "[a-c]x" );
+		assertTrue( pattern.matcher( "Bx" ).matches() );
+		assertTrue( pattern.matcher( "bX" ).matches() );
+		assertFalse( pattern.matcher( "dX" ).matches() );
+
+		//the other case is excluded as well
+		pattern = compile( "[^a]" );
+		assertFalse( pattern.matcher( "a" ).matches() );
+		assertFalse( pattern.matcher( "A" ).matches() );
+		assertTrue( pattern.matcher( "b" ).matches() );
+
+		assertTrue( compile( "[X-Z]+" ).matcher( "xYz" ).matches() );
+	}
+
+	@Test
+	public void testBackReferences() {
+		MoaPattern pattern = compile( "(?<x>[a-z]+)=\\k<x>" );
+		assertTrue( pattern.matcher( "abc=ABC" ).matches() );
+		assertTrue( pattern.matcher( "aBc=AbC" ).matches() );
+		assertFalse( pattern.matcher( "abc=abd" ).matches() );
+
+		MoaMatcher matcher = pattern.matcher( "aBc=AbC" );
+		assertTrue( matcher.matches() );
+		//the groups keep the input as it is
+		assertEquals( "aBc", matcher.getVariableContent( "x" ) );
+	}
+
+	@Test
+	public void testDeterminism() {
+		try {
+			compile( "E|e" );
+			fail( "E|e reads the same code point in both branches" );
+		}
+		catch (NonDeterministicException e) {
+			//expected
+		}
+	}
+
+	@Test
+	public void testSameSize() {
+		for ( String regex : new String[] {"error", "[Ee]rror", "a[b-d]+\\d{2}", "(?:foo|bar)+x"} ) {
+			FrozenEdgeGraph caseSensitive = FrozenEdgeGraphTest.frozen( regex.toLowerCase() );
+			FrozenEdgeGraph caseInsensitive = frozen( regex );
+			assertEquals( regex, caseSensitive.getStateCount(), caseInsensitive.getStateCount() );
+			assertNotNull( regex, caseInsensitive.getDfa() );
+			assertEquals( regex, caseSensitive.getDfa().getStateCount(), caseInsensitive.getDfa().getStateCount() );
+			assertEquals(
+					regex,
+					caseSensitive.getDfa().getCodePointClasses().getClassCount(),
+					caseInsensitive.getDfa().getCodePointClasses().getClassCount()
+			);
+		}
+	}
+
+	@Test
+	public void testAgainstJava() {
+		String[] regexes = new String[] {
+				"error",
+				"ab+c",
+				"[a-c]+x",
+				"[^b]y",
+				"x\\w{2,3}",
+				"(?:foo|bar)+",
+				"(a)(B)c",
+				"(?<x>[ab]+)c\\k<x>",
+				"bar$",
+				"^ab"
+		};
+		String[] inputs = new String[] {
+				"",
+				"ERROR error ErRoR",
+				"aBbC abc",
+				"AcBx cx",
+				"bY AY ay",
+				"X12 xAbC",
+				"FOObar fooBAR",
+				"abc ABC AbC",
+				"abcAB aBCab",
+				"foo FOO afoo",
+				"AB ab"
+		};
+		for ( String regex : regexes ) {
+			MoaPattern pattern = compile( regex );
+			Pattern javaPattern = Pattern.compile( regex, Pattern.CASE_INSENSITIVE );
+			for ( String input : inputs ) {
+				String message = regex + " " + input;
+				byte[] bytes = input.getBytes( StandardCharsets.UTF_8 );
+				TestUtil.assertSameMatches( message, javaPattern, pattern.matcher( input ), input );
+				TestUtil.assertSameMatches( message, javaPattern, pattern.matcher( bytes, 0, bytes.length ), input );
+				assertEquals( message, javaPattern.matcher( input ).matches(), pattern.matcher( input ).matches() );
+			}
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import java.nio.charset.StandardCharsets;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.moa.edgegraph.Dfa;
+import com.github.s4ke.moar.moa.edgegraph.FrozenEdgeGraph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class ContainsCountTest {
+
+	private static final String[] REGEXES = new String[] {
+			//table with the bit-parallel search
+			"ab+c",
+			"\\d+",
+			//interpreter without backreferences
+			"(?<x>a)[bc]+",
+			"^x\\d",
+			//interpreter with backreferences
+			"(?<x>[ab]+)c\\k<x>",
+			//matches the empty String
+			"a*"
+	};
+
+	private static final String[] INPUTS = new String[] {
+			"",
+			"abc xabbbc",
+			"12 345 6",
+			"aac acb",
+			"x1\nx2 x3",
+			"abcab bcb aca",
+			"baab",
+			"nothing"
+	};
+
+	@Test
+	public void testSameAsNextMatch() {
+		for ( String regex : REGEXES ) {
+			MoaPattern pattern = MoaPattern.compile( regex );
+			for ( String input : INPUTS ) {
+				String message = regex + " " + input;
+				MoaMatcher matcher = pattern.matcher( input );
+				boolean found = matcher.nextMatch();
+				int count = 0;
+				if ( found ) {
+					//empty matches are only counted once at every position
+					int last = -1;
+					do {
+						if ( matcher.getStart() != last || matcher.getEnd() != last ) {
+							++count;
+						}
+						last = matcher.getStart() == matcher.getEnd() ? matcher.getEnd() : -1;
+					}
+					while ( last == -1 && matcher.nextMatch() );
+				}
+
+				MoaMatcher other = pattern.matcher( input );
+				assertEquals( message, found, other.contains() );
+				byte[] bytes = input.getBytes( StandardCharsets.UTF_8 );
+				assertEquals( message, found, pattern.matcher( bytes, 0, bytes.length ).contains() );
+				if ( !regex.equals( "a*" ) ) {
+					assertEquals( message, count, other.count() );
+					assertEquals( message, count, pattern.matcher( bytes, 0, bytes.length ).count() );
+				}
+
+				//the matcher is reset afterwards
+				assertEquals( message, found, other.nextMatch() );
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyMatches() {
+		//like java.util.regex: 0-0, 1-3, 3-3 and 4-4
+		assertEquals( 4, MoaPattern.compile( "a*" ).matcher( "baab" ).count() );
+		assertEquals( 1, MoaPattern.compile( "a*" ).matcher( "" ).count() );
+		assertTrue( MoaPattern.compile( "a*" ).matcher( "b" ).contains() );
+	}
+
+	@Test
+	public void testCapturingGroups() {
+		//abcab, bcb (inside of abcb) and bcb
+		MoaMatcher matcher = MoaPattern.compile( "(?<x>[ab]+)c\\k<x>" ).matcher( "xabcab abcb bcb" );
+		assertEquals( 3, matcher.count() );
+		assertTrue( matcher.contains() );
+		//the groups are still there for nextMatch
+		assertTrue( matcher.nextMatch() );
+		assertEquals( "ab", matcher.getVariableContent( "x" ) );
+	}
+
+	@Test
+	public void testSurelyAccepts() {
+		Dfa dfa = FrozenEdgeGraphTest.frozen( "ab+" ).getDfa();
+		int state = FrozenEdgeGraphTest.stateAfter( dfa.getEdges(), FrozenEdgeGraph.SRC, 'a' );
+		assertFalse( dfa.surelyAccepts( state ) );
+		//every run that has read a b ends with a match
+		assertTrue( dfa.surelyAccepts( FrozenEdgeGraphTest.stateAfter( dfa.getEdges(), state, 'b' ) ) );
+
+		//after ab, reading an a goes on to a state that doesn't accept
+		dfa = FrozenEdgeGraphTest.frozen( "(?:ab)+" ).getDfa();
+		state = FrozenEdgeGraphTest.stateAfter( dfa.getEdges(), FrozenEdgeGraph.SRC, 'a' );
+		state = FrozenEdgeGraphTest.stateAfter( dfa.getEdges(), state, 'b' );
+		assertTrue( dfa.accepts( state ) );
+		assertFalse( dfa.surelyAccepts( state ) );
+		assertFalse( MoaPattern.compile( "(?:ab)+" ).matcher( "aba" ).matches() );
+		//so contains() must not stop in there
+		assertFalse( MoaPattern.compile( "(?:ab)+" ).matcher( "xaba" ).nextMatch() );
+		assertFalse( MoaPattern.compile( "(?:ab)+" ).matcher( "xaba" ).contains() );
+	}
+
+}
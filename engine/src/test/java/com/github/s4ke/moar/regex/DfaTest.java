@@ -0,0 +1,178 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.moa.edgegraph.BitParallelSearch;
+import com.github.s4ke.moar.moa.edgegraph.CodePointClasses;
+import com.github.s4ke.moar.moa.edgegraph.Dfa;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class DfaTest {
+
+	private static final String ALPHABET = "abc\nä ";
+
+	@Test
+	public void testEligibility() {
+		assertNotNull( FrozenEdgeGraphTest.frozen( "(?:ab)+c" ).getDfa() );
+		assertNotNull( FrozenEdgeGraphTest.frozen( "[^a]\\w" ).getDfa() );
+		assertNull( FrozenEdgeGraphTest.frozen( "(a)b" ).getDfa() );
+		assertNull( FrozenEdgeGraphTest.frozen( "^ab" ).getDfa() );
+		assertNull( FrozenEdgeGraphTest.frozen( "ab$" ).getDfa() );
+		assertNull( FrozenEdgeGraphTest.frozen( "(?<x>a)\\k<x>" ).getDfa() );
+	}
+
+	@Test
+	public void testBitParallelSearch() {
+		assertNotNull( FrozenEdgeGraphTest.frozen( "(?:ab)+c" ).getDfa().getBitParallelSearch() );
+		StringBuilder literal = new StringBuilder();
+		for ( int i = 0; i < BitParallelSearch.MAX_STATES; ++i ) {
+			literal.append( (char) ('a' + i % 3) );
+		}
+		//SRC and SNK come on top of the states of the literal
+		Dfa dfa = FrozenEdgeGraphTest.frozen( literal.toString() ).getDfa();
+		assertNotNull( dfa );
+		assertNull( dfa.getBitParallelSearch() );
+
+		//the runs that are still active when a match is found are repeated by the table
+		MoaMatcher matcher = MoaPattern.compile( "a(?:b|c)+d" ).matcher( "xabcbabdabcbd" );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 5, matcher.getStart() );
+		assertEquals( 8, matcher.getEnd() );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 8, matcher.getStart() );
+		assertEquals( 13, matcher.getEnd() );
+		assertFalse( matcher.nextMatch() );
+
+		//some run is active at every position, the start is found by going back from the end of the match
+		matcher = MoaPattern.compile( "[^x]y" ).matcher( "abababy" );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 5, matcher.getStart() );
+		assertEquals( 7, matcher.getEnd() );
+
+		matcher = MoaPattern.compile( literal.toString() ).matcher( "ab" + literal );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 2, matcher.getStart() );
+	}
+
+	@Test
+	public void testCodePointClasses() {
+		CodePointClasses classes = FrozenEdgeGraphTest.frozen( "[^a-z]x" ).getCodePointClasses();
+		//[^a-z], [a-z] without x and x
+		assertEquals( 3, classes.getClassCount() );
+		assertEquals( classes.classOf( 'b' ), classes.classOf( 'y' ) );
+		assertEquals( classes.classOf( '0' ), classes.classOf( Character.MAX_CODE_POINT ) );
+		assertNotEquals( classes.classOf( 'x' ), classes.classOf( 'y' ) );
+		assertNotEquals( classes.classOf( '0' ), classes.classOf( 'a' ) );
+		//only the first block differs from the rest
+		assertEquals( 2, classes.getBlockCount() );
+
+		classes = FrozenEdgeGraphTest.frozen( ".\\S\\d" ).getCodePointClasses();
+		assertEquals( 3, classes.getClassCount() );
+		assertEquals( classes.classOf( ' ' ), classes.classOf( '\n' ) );
+		assertEquals( classes.classOf( 'a' ), classes.classOf( 0x4E00 ) );
+
+		MoaMatcher matcher = MoaPattern.compile( "[\u4E00-\u9FFF]+[^\u4E00-\u9FFF]" ).matcher( "a\u4E00\u9FFF\uD83D\uDE00" );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 1, matcher.getStart() );
+		assertEquals( 4, matcher.getEnd() );
+	}
+
+	@Test
+	public void testSameResultsAsInterpreter() {
+		String[] regexes = new String[] {
+				"abc",
+				"a+b",
+				"(?:a|b)*c",
+				"[ab]c?",
+				"(?:ab)+",
+				"ä| b",
+				"[^a]+",
+				"\\s\\w",
+				"[^ab]\\S",
+				".ä"
+		};
+		for ( String regex : regexes ) {
+			//a capturing group around everything keeps the pattern on the interpreter
+			MoaMatcher tableMatcher = MoaPattern.compile( regex ).matcher( "" );
+			MoaMatcher interpreterMatcher = MoaPattern.compile( "(" + regex + ")" ).matcher( "" );
+			for ( String input : strings( ALPHABET, 5 ) ) {
+				String message = regex + " " + input;
+				tableMatcher.reuse( input );
+				interpreterMatcher.reuse( input );
+				assertEquals( message, interpreterMatcher.matches(), tableMatcher.matches() );
+				assertEquals( message, interpreterMatcher.hitEnd(), tableMatcher.hitEnd() );
+
+				tableMatcher.reuse( input );
+				interpreterMatcher.reuse( input );
+				boolean found;
+				do {
+					found = interpreterMatcher.nextMatch();
+					assertEquals( message, found, tableMatcher.nextMatch() );
+					assertEquals( message, interpreterMatcher.hitEnd(), tableMatcher.hitEnd() );
+					if ( found ) {
+						assertEquals( message, interpreterMatcher.getStart(), tableMatcher.getStart() );
+						assertEquals( message, interpreterMatcher.getEnd(), tableMatcher.getEnd() );
+					}
+				}
+				while ( found );
+
+				assertEquals(
+						message,
+						interpreterMatcher.reuse( input ).replaceAll( "x" ),
+						tableMatcher.reuse( input ).replaceAll( "x" )
+				);
+			}
+		}
+	}
+
+	static List<String> strings(String alphabet, int maxLength) {
+		List<String> ret = new ArrayList<>();
+		ret.add( "" );
+		for ( int start = 0; start < ret.size(); ++start ) {
+			String cur = ret.get( start );
+			if ( cur.codePointCount( 0, cur.length() ) < maxLength ) {
+				alphabet.codePoints().forEach( cp -> ret.add( new StringBuilder( cur ).appendCodePoint( cp ).toString() ) );
+			}
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import java.util.regex.Pattern;
+
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.moa.edgegraph.FirstCodePoints;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class FirstCodePointsTest {
+
+	private static final String INPUT = "  From fairest creatures we desire increase,\n" +
+			"  That thereby beauty's rose might never die, 1234 𐐨x";
+
+	@Test
+	public void testContents() {
+		FirstCodePoints firstCodePoints = firstCodePoints( "[A-Z]([a-z])+" );
+		assertTrue( firstCodePoints.contains( 'A' ) );
+		assertTrue( firstCodePoints.contains( 'Z' ) );
+		assertFalse( firstCodePoints.contains( 'a' ) );
+		assertFalse( firstCodePoints.contains( 0x10428 ) );
+
+		firstCodePoints = firstCodePoints( "^\\s|b" );
+		assertTrue( firstCodePoints.contains( ' ' ) );
+		assertTrue( firstCodePoints.contains( '\n' ) );
+		assertTrue( firstCodePoints.contains( 'b' ) );
+		assertFalse( firstCodePoints.contains( 'a' ) );
+
+		firstCodePoints = firstCodePoints( "[^a-z]" );
+		assertFalse( firstCodePoints.contains( 'a' ) );
+		assertTrue( firstCodePoints.contains( 'A' ) );
+		assertTrue( firstCodePoints.contains( 0x10428 ) );
+
+		firstCodePoints = firstCodePoints( "\\D" );
+		assertFalse( firstCodePoints.contains( '1' ) );
+		assertTrue( firstCodePoints.contains( 0x10428 ) );
+
+		assertNull( firstCodePoints( "a*" ) );
+		assertNull( firstCodePoints( "(\\2a(b|c+)a)+" ) );
+	}
+
+	@Test
+	public void testSameResultsAsJava() {
+		String[] regexes = new String[] {
+				"[A-Z]([a-z])+",
+				"^\\s+",
+				"[0-9]+",
+				"\\D\\d",
+				"[^a-z]x",
+				"e(a|s)"
+		};
+		for ( String regex : regexes ) {
+			Pattern javaPattern = Pattern.compile( regex, Pattern.MULTILINE );
+			TestUtil.assertSameMatches( regex, javaPattern, MoaPattern.compile( regex ).matcher( INPUT ), INPUT );
+		}
+	}
+
+	private static FirstCodePoints firstCodePoints(String regex) {
+		FirstCodePoints[] firstCodePoints = new FirstCodePoints[1];
+		MoaPattern.compile( regex ).accessMoa( moa -> firstCodePoints[0] = moa.getFrozenEdges().getFirstCodePoints() );
+		return firstCodePoints[0];
+	}
+
+}
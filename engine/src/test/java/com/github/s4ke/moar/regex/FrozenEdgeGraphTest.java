@@ -0,0 +1,155 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.moa.Moa;
+import com.github.s4ke.moar.moa.edgegraph.EdgeGraph;
+import com.github.s4ke.moar.moa.edgegraph.FrozenEdgeGraph;
+import com.github.s4ke.moar.moa.states.BasicState;
+import com.github.s4ke.moar.moa.states.State;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class FrozenEdgeGraphTest {
+
+	@Test
+	public void testEmptyAcceptance() {
+		FrozenEdgeGraph edges = frozen( "ab" );
+		assertEquals( FrozenEdgeGraph.EMPTY_REJECT, edges.getEmptyAcceptance( FrozenEdgeGraph.SRC ) );
+		assertEquals( FrozenEdgeGraph.EMPTY_REJECT, edges.getEmptyAcceptance( stateAfter( edges, FrozenEdgeGraph.SRC, 'a' ) ) );
+		int b = stateAfter( edges, stateAfter( edges, FrozenEdgeGraph.SRC, 'a' ), 'b' );
+		assertEquals( FrozenEdgeGraph.EMPTY_ACCEPT, edges.getEmptyAcceptance( b ) );
+
+		edges = frozen( "a*" );
+		assertEquals( FrozenEdgeGraph.EMPTY_ACCEPT, edges.getEmptyAcceptance( FrozenEdgeGraph.SRC ) );
+
+		//whether the end of input is reached depends on the position
+		edges = frozen( "ab$" );
+		b = stateAfter( edges, stateAfter( edges, FrozenEdgeGraph.SRC, 'a' ), 'b' );
+		assertEquals( FrozenEdgeGraph.EMPTY_CONDITIONAL, edges.getEmptyAcceptance( b ) );
+
+		//the backreference might be empty
+		edges = frozen( "(?<x>a*)b\\k<x>" );
+		int afterB = stateAfter( edges, FrozenEdgeGraph.SRC, 'b' );
+		assertEquals( FrozenEdgeGraph.EMPTY_CONDITIONAL, edges.getEmptyAcceptance( afterB ) );
+	}
+
+	@Test
+	public void testAnchoring() {
+		assertEquals( FrozenEdgeGraph.ANCHOR_LINE_START, frozen( "^ab" ).getStartAnchor() );
+		assertEquals( FrozenEdgeGraph.ANCHOR_LAST_MATCH, frozen( "\\Gab" ).getStartAnchor() );
+		assertEquals( FrozenEdgeGraph.ANCHOR_NONE, frozen( "ab" ).getStartAnchor() );
+
+		assertTrue( frozen( "ab\\z" ).isAnchoredAtEndOfInput() );
+		assertTrue( frozen( "a|b\\z" ).isAnchoredAtEndOfInput() );
+		assertFalse( frozen( "ab$" ).isAnchoredAtEndOfInput() );
+		assertFalse( frozen( "a|b" ).isAnchoredAtEndOfInput() );
+
+		assertEquals( 2, frozen( "ab\\z" ).getMaxMatchLength() );
+		assertEquals( 3, frozen( "ab?c?" ).getMaxMatchLength() );
+		assertEquals( 4, frozen( "^(?:ab|c)(?:de)?" ).getMaxMatchLength() );
+		assertEquals( FrozenEdgeGraph.UNBOUNDED, frozen( "ab+" ).getMaxMatchLength() );
+		assertEquals( FrozenEdgeGraph.UNBOUNDED, frozen( "(?<x>a)\\k<x>" ).getMaxMatchLength() );
+	}
+
+	@Test
+	public void testLiveness() {
+		FrozenEdgeGraph edges = frozen( "ab|c" );
+		assertEquals( FrozenEdgeGraph.LIVE, edges.getLiveness( FrozenEdgeGraph.SRC ) );
+		assertEquals( FrozenEdgeGraph.LIVE, edges.getLiveness( stateAfter( edges, FrozenEdgeGraph.SRC, 'a' ) ) );
+
+		//SNK can only be reached through the back reference
+		edges = frozen( "(?<x>a)b\\k<x>" );
+		int b = stateAfter( edges, stateAfter( edges, FrozenEdgeGraph.SRC, 'a' ), 'b' );
+		assertEquals( FrozenEdgeGraph.LIVE_THROUGH_VARIABLE, edges.getLiveness( b ) );
+		assertEquals( FrozenEdgeGraph.LIVE_THROUGH_VARIABLE, edges.getLiveness( FrozenEdgeGraph.SRC ) );
+
+		//after a, b and c lead nowhere and d can't be reached at all
+		State[] states = new State[] {
+				Moa.SRC,
+				Moa.SNK,
+				new BasicState( 2, "a" ),
+				new BasicState( 3, "b" ),
+				new BasicState( 4, "c" ),
+				new BasicState( 5, "d" )
+		};
+		EdgeGraph edgeGraph = new EdgeGraph();
+		for ( State state : states ) {
+			edgeGraph.addState( state );
+		}
+		edgeGraph.addEdgeWithDeterminismCheck( states[0], new EdgeGraph.Edge( new HashSet<>(), states[2] ), "test" );
+		edgeGraph.addEdgeWithDeterminismCheck( states[2], new EdgeGraph.Edge( new HashSet<>(), states[1] ), "test" );
+		edgeGraph.addEdgeWithDeterminismCheck( states[2], new EdgeGraph.Edge( new HashSet<>(), states[3] ), "test" );
+		edgeGraph.addEdgeWithDeterminismCheck( states[3], new EdgeGraph.Edge( new HashSet<>(), states[4] ), "test" );
+		edgeGraph.addEdgeWithDeterminismCheck( states[4], new EdgeGraph.Edge( new HashSet<>(), states[3] ), "test" );
+		edgeGraph.addEdgeWithDeterminismCheck( states[5], new EdgeGraph.Edge( new HashSet<>(), states[1] ), "test" );
+		Moa moa = new Moa();
+		moa.setVariables( new HashMap<>() );
+		moa.setEdges( edgeGraph );
+		moa.freeze();
+
+		edges = moa.getFrozenEdges();
+		assertEquals( 5, edges.getStateCount() );
+		int a = stateAfter( edges, FrozenEdgeGraph.SRC, 'a' );
+		assertEquals( FrozenEdgeGraph.LIVE, edges.getLiveness( a ) );
+		b = stateAfter( edges, a, 'b' );
+		assertTrue( edges.isDead( b ) );
+		assertTrue( edges.isDead( stateAfter( edges, b, 'c' ) ) );
+
+		MoaMatcher matcher = MoaPattern.build( moa, "a(?:bc)*" ).matcher( "abcb" );
+		assertFalse( matcher.matches() );
+		assertFalse( matcher.hitEnd() );
+		matcher.reuse( "a" );
+		assertTrue( matcher.matches() );
+		assertTrue( matcher.hitEnd() );
+	}
+
+	static FrozenEdgeGraph frozen(String regex) {
+		FrozenEdgeGraph[] edges = new FrozenEdgeGraph[1];
+		MoaPattern.compile( regex ).accessMoa( moa -> edges[0] = moa.getFrozenEdges() );
+		return edges[0];
+	}
+
+	static int stateAfter(FrozenEdgeGraph edges, int state, int codePoint) {
+		for ( int edge = edges.getEdgeStart( state ); edge < edges.getStaticEdgeEnd( state ); ++edge ) {
+			if ( edges.getCodePoint( edges.getDestination( edge ) ) == codePoint ) {
+				return edges.getDestination( edge );
+			}
+		}
+		throw new AssertionError( "no edge for " + new String( Character.toChars( codePoint ) ) );
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class HitEndTest {
+
+	private static final String ALPHABET = "abc\n";
+
+	@Test
+	public void testMatches() {
+		MoaMatcher matcher = MoaPattern.compile( "abc" ).matcher( "ab" );
+		assertFalse( matcher.matches() );
+		assertTrue( matcher.hitEnd() );
+
+		matcher.reuse( "ax" );
+		assertFalse( matcher.matches() );
+		assertFalse( matcher.hitEnd() );
+
+		matcher.reuse( "" );
+		assertFalse( matcher.matches() );
+		assertTrue( matcher.hitEnd() );
+
+		//more input could still be matched
+		matcher = MoaPattern.compile( "a+" ).matcher( "aa" );
+		assertTrue( matcher.matches() );
+		assertTrue( matcher.hitEnd() );
+
+		matcher = MoaPattern.compile( "(?<x>a+)b\\k<x>" ).matcher( "aaba" );
+		assertFalse( matcher.matches() );
+		assertTrue( matcher.hitEnd() );
+		matcher.reuse( "abab" );
+		assertFalse( matcher.matches() );
+		assertFalse( matcher.hitEnd() );
+	}
+
+	@Test
+	public void testNextMatch() {
+		MoaMatcher matcher = MoaPattern.compile( "ab" ).matcher( "xab" );
+		assertTrue( matcher.nextMatch() );
+		assertFalse( matcher.hitEnd() );
+		assertFalse( matcher.nextMatch() );
+		assertTrue( matcher.hitEnd() );
+
+		matcher = MoaPattern.compile( "ab+" ).matcher( "xab" );
+		assertTrue( matcher.nextMatch() );
+		assertTrue( matcher.hitEnd() );
+	}
+
+	@Test
+	public void testNoFalseNegatives() {
+		String[] regexes = new String[] {
+				"abc",
+				"a+b",
+				"(a|b)*c",
+				"^ab$",
+				"a\\z",
+				"[ab]c?",
+				"(?<x>a+)b\\k<x>",
+				"(?:ab)+"
+		};
+		for ( String regex : regexes ) {
+			MoaMatcher matcher = MoaPattern.compile( regex ).matcher( "" );
+			MoaMatcher extensionMatcher = MoaPattern.compile( regex ).matcher( "" );
+			for ( String prefix : strings( 4 ) ) {
+				matcher.reuse( prefix ).matches();
+				if ( !matcher.hitEnd() ) {
+					//nothing that starts with the prefix may match
+					for ( String suffix : strings( 3 ) ) {
+						if ( !suffix.isEmpty() ) {
+							assertFalse(
+									regex + " " + prefix + "|" + suffix,
+									extensionMatcher.reuse( prefix + suffix ).matches()
+							);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static List<String> strings(int maxLength) {
+		List<String> ret = new ArrayList<>();
+		ret.add( "" );
+		for ( int start = 0; start < ret.size(); ++start ) {
+			String cur = ret.get( start );
+			if ( cur.length() < maxLength ) {
+				for ( char c : ALPHABET.toCharArray() ) {
+					ret.add( cur + c );
+				}
+			}
+		}
+		return ret;
+	}
+
+}
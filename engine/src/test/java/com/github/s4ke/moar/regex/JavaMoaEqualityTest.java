@@ -32,6 +32,7 @@ import com.github.s4ke.moar.MoaPattern;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -114,5 +115,30 @@ public class JavaMoaEqualityTest {
 		assertEquals( matchCountFirst, matchCountSnd );
 	}
 
+	@Test
+	public void testLineBoundsOnLongInput() {
+		//long enough so the line breaks are indexed in more than one chunk
+		StringBuilder builder = new StringBuilder();
+		String[] lineBreaks = new String[] {"\n", "\u0085", "\u2028", "\u2029"};
+		for ( int i = 0; i < 2000; ++i ) {
+			for ( int j = 0; j < i % 7; ++j ) {
+				builder.append( i % 3 == 0 ? 'a' : 'b' );
+			}
+			builder.append( lineBreaks[i % lineBreaks.length] );
+		}
+		String input = builder.toString();
+
+		for ( String regex : new String[] {"^a", "^b", "a$", "b$"} ) {
+			Matcher javaMatcher = Pattern.compile( regex, Pattern.MULTILINE ).matcher( input );
+			MoaMatcher moaMatcher = MoaPattern.compile( regex ).matcher( input );
+			while ( javaMatcher.find() ) {
+				assertTrue( regex, moaMatcher.nextMatch() );
+				assertEquals( regex, javaMatcher.start(), moaMatcher.getStart() );
+				assertEquals( regex, javaMatcher.end(), moaMatcher.getEnd() );
+			}
+			assertFalse( regex, moaMatcher.nextMatch() );
+		}
+	}
+
 
 }
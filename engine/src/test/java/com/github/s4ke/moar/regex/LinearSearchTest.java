@@ -0,0 +1,124 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class LinearSearchTest {
+
+	@Test(timeout = 10000)
+	public void testNearMisses() {
+		//restarting at every position would need O(n^2) steps for this
+		StringBuilder builder = new StringBuilder();
+		for ( int i = 0; i < 100000; ++i ) {
+			builder.append( 'a' );
+		}
+		String input = builder.toString();
+		MoaMatcher matcher = MoaPattern.compile( "a+b" ).matcher( input );
+		assertFalse( matcher.nextMatch() );
+
+		matcher.reuse( input + "b" );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 0, matcher.getStart() );
+		assertEquals( 100001, matcher.getEnd() );
+		assertFalse( matcher.nextMatch() );
+	}
+
+	@Test
+	public void testLeftmostMatchWins() {
+		//the run starting at 0 finishes later than the one starting at 1
+		MoaMatcher matcher = MoaPattern.compile( "ab+c|bd" ).matcher( "abbbbbc bd abd" );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 0, matcher.getStart() );
+		assertEquals( 7, matcher.getEnd() );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 8, matcher.getStart() );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 12, matcher.getStart() );
+		assertFalse( matcher.nextMatch() );
+	}
+
+	@Test
+	public void testSameResultsAsRestarting() {
+		//the alternative with the back reference never matches, but it makes the
+		//matcher restart at every position instead of searching in linear time
+		String restarting = "|#(?<unused>y)\\k<unused>";
+		String[][] cases = new String[][] {
+				{"a((a)c)?", "aa"},
+				{"(?:cb+aa)?a", "abbacbba"},
+				{"(?:ab)+", "xaba abab"},
+				{"ab+c|bd", "abbbbbc bd abd"},
+				{"a+b", "aaa aab"},
+				{"(?:abc)+d", "abcab abcabcd"},
+				{"a(?:bc)*", "abcb abc"}
+		};
+		for ( String[] testCase : cases ) {
+			String regex = testCase[0];
+			String input = testCase[1];
+			TestUtil.assertSameMatches(
+					regex,
+					MoaPattern.compile( regex ).matcher( input ),
+					MoaPattern.compile( regex + restarting ).matcher( input )
+			);
+			byte[] bytes = input.getBytes( StandardCharsets.UTF_8 );
+			TestUtil.assertSameMatches(
+					regex,
+					MoaPattern.compile( regex ).matcher( bytes, 0, bytes.length ),
+					MoaPattern.compile( regex + restarting ).matcher( bytes, 0, bytes.length )
+			);
+		}
+	}
+
+	@Test
+	public void testSameResultsAsJava() {
+		String input = "xaab abab\nabcab ababc aab\nb";
+		String[] regexes = new String[] {
+				"(a|b)*c",
+				"a+b",
+				"^ab",
+				"b$",
+				"\\Gx",
+				"(?:ab)+c",
+				"(?<first>a)(?<second>b)"
+		};
+		for ( String regex : regexes ) {
+			Pattern javaPattern = Pattern.compile( regex, Pattern.MULTILINE );
+			TestUtil.assertSameMatches( regex, javaPattern, MoaPattern.compile( regex ).matcher( input ), input );
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.moa.edgegraph.FrozenEdgeGraph;
+import com.github.s4ke.moar.moa.edgegraph.LiteralRuns;
+import com.github.s4ke.moar.util.IntCharSeq;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class LiteralRunsTest {
+
+	@Test
+	public void testRuns() {
+		FrozenEdgeGraph edges = FrozenEdgeGraphTest.frozen( "(abc)d|x" );
+		LiteralRuns runs = edges.getLiteralRuns();
+		int a = FrozenEdgeGraphTest.stateAfter( edges, FrozenEdgeGraph.SRC, 'a' );
+		int c = FrozenEdgeGraphTest.stateAfter( edges, FrozenEdgeGraphTest.stateAfter( edges, a, 'b' ), 'c' );
+		//closing the group on the way to d ends the run
+		assertEquals( 2, runs.getLength( a ) );
+		assertEquals( c, runs.getEnd( a ) );
+		assertTrue( runs.occursAt( a, new IntCharSeq( "abc" ), 1 ) );
+		assertFalse( runs.occursAt( a, new IntCharSeq( "abd" ), 1 ) );
+		//SRC has two ways out
+		assertEquals( 0, runs.getLength( FrozenEdgeGraph.SRC ) );
+
+		edges = FrozenEdgeGraphTest.frozen( "x[ab]cd" );
+		int x = FrozenEdgeGraphTest.stateAfter( edges, FrozenEdgeGraph.SRC, 'x' );
+		int set = edges.getDestination( edges.getEdgeStart( x ) );
+		assertEquals( 2, edges.getLiteralRuns().getLength( set ) );
+
+		assertNull( FrozenEdgeGraphTest.frozen( "[ab]c" ).getLiteralRuns() );
+	}
+
+	@Test
+	public void testMatching() {
+		MoaMatcher matcher = MoaPattern.compile( "(?<x>ab)cdef\\k<x>" ).matcher( "abcdefab" );
+		assertTrue( matcher.matches() );
+		assertEquals( "ab", matcher.getVariableContent( "x" ) );
+
+		//the run doesn't fit into the input anymore
+		matcher.reuse( "abcde" );
+		assertFalse( matcher.matches() );
+		assertTrue( matcher.hitEnd() );
+
+		matcher.reuse( "abcdxfab" );
+		assertFalse( matcher.matches() );
+		assertFalse( matcher.hitEnd() );
+
+		matcher = MoaPattern.compile( "(?<x>abcd)e" ).matcher( "abcabcde abcdx" );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 3, matcher.getStart() );
+		assertEquals( 8, matcher.getEnd() );
+		assertEquals( "abcd", matcher.getVariableContent( "x" ) );
+		assertFalse( matcher.nextMatch() );
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class MinimizationTest {
+
+	@Test
+	public void testEquivalentStatesAreMerged() {
+		//b, c and d of both branches are merged, a and e are kept, plus SRC and SNK
+		MoaPattern pattern = MoaPattern.compile( "a(?:b|c)d|e(?:b|c)d" );
+		assertEquals( 7, stateCount( pattern ) );
+
+		//capturing groups close different variables before d, so only d is merged
+		assertEquals( 9, stateCount( MoaPattern.compile( "a(b|c)d|e(b|c)d" ) ) );
+
+		MoaMatcher matcher = pattern.matcher( "abd ecd acd ebd abc" );
+		for ( String expected : new String[] {"abd", "ecd", "acd", "ebd"} ) {
+			assertTrue( matcher.nextMatch() );
+			assertEquals( expected.length(), matcher.getEnd() - matcher.getStart() );
+		}
+		assertFalse( matcher.nextMatch() );
+	}
+
+	@Test
+	public void testMemoryActionsAreKept() {
+		//the two b's are merged, the two a's aren't as they close different variables
+		MoaPattern pattern = MoaPattern.compile( "(?<x>a)b|c(?<y>a)b" );
+		assertEquals( 6, stateCount( pattern ) );
+
+		MoaMatcher matcher = pattern.matcher( "cab" );
+		assertTrue( matcher.matches() );
+		assertEquals( "a", matcher.getVariableContent( "y" ) );
+		assertEquals( "", matcher.getVariableContent( "x" ) );
+
+		matcher.reuse( "ab" );
+		assertTrue( matcher.matches() );
+		assertEquals( "a", matcher.getVariableContent( "x" ) );
+	}
+
+	@Test
+	public void testBackReferencesAreKept() {
+		MoaPattern pattern = MoaPattern.compile( "(?<x>a+)b\\k<x>|c(?<y>a+)b\\k<y>" );
+		assertTrue( pattern.matcher( "aabaa" ).matches() );
+		assertTrue( pattern.matcher( "caba" ).matches() );
+		assertFalse( pattern.matcher( "caaba" ).matches() );
+	}
+
+	private static int stateCount(MoaPattern pattern) {
+		int[] count = new int[1];
+		pattern.accessMoa( moa -> count[0] = moa.getFrozenEdges().getStateCount() );
+		return count[0];
+	}
+
+}
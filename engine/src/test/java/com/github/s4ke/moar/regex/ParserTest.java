@@ -257,6 +257,17 @@ public class ParserTest {
 		}
 	}
 
+	@Test
+	public void testLatin1Boundary() {
+		//the frozen edge graph has a fast path for code points < 256
+		Moa moa = parseRegex( "þ[ÿ-ā]+Ă" ).toMoa();
+		assertMatch( true, moa, "þÿĂ" );
+		assertMatch( true, moa, "þāÿĂ" );
+		assertMatch( true, moa, "þĀĂ" );
+		assertMatch( false, moa, "þþĂ" );
+		assertMatch( false, moa, "þăĂ" );
+	}
+
 	@Test
 	public void testSingleChar() {
 		Regex regex = parseRegex( "a" );
@@ -375,6 +386,34 @@ public class ParserTest {
 		assertMatch( true, moa, "aabaa" );
 	}
 
+	@Test
+	public void testManyGroups() {
+		MoaPattern pattern = MoaPattern.compile(
+				"(?<k>[a-z]+)=(?<a>[0-9])(?<b>[0-9])(?<c>[0-9])(?<d>[0-9])(?<e>[0-9])(?<f>[0-9])(?<g>[0-9])(?<h>[0-9])(?<i>[0-9]);\\k<k>"
+		);
+		MoaMatcher matcher = pattern.matcher( "x=12 key=123456789;ke key=987654321;key" );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( "key", matcher.getVariableContent( "k" ) );
+		assertEquals( "1", matcher.getVariableContent( "i" ) );
+		assertEquals( "4", matcher.getVariableContent( 7 ) );
+		assertEquals( 22, matcher.getStart() );
+		assertFalse( matcher.nextMatch() );
+	}
+
+	@Test
+	public void testMoreThan64Groups() {
+		//the memory actions are stored in bitmasks of 64 variables each
+		MoaPattern pattern = MoaPattern.compile( TestUtil.repeat( "([a-z])", 70 ) + "\\70" );
+		String input = TestUtil.repeat( "abcdefghij", 7 ) + "j";
+		MoaMatcher matcher = pattern.matcher( input );
+		assertTrue( matcher.matches() );
+		assertEquals( "a", matcher.getVariableContent( 1 ) );
+		assertEquals( "d", matcher.getVariableContent( 64 ) );
+		assertEquals( "e", matcher.getVariableContent( 65 ) );
+		assertEquals( "j", matcher.getVariableContent( 70 ) );
+		assertFalse( matcher.reuse( input.substring( 0, 70 ) + "i" ).matches() );
+	}
+
 	@Test
 	public void testNonCapturingGroup() {
 		Moa moa = parseRegex( "(?:ab|d)*c" ).toMoa();
@@ -0,0 +1,121 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.PatternInfo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class PatternInfoTest {
+
+	@Test
+	public void testLength() {
+		PatternInfo info = info( "[A-Z][A-Z]x?[0-9][0-9]" );
+		assertEquals( 4, info.getMinLength() );
+		assertEquals( 5, info.getMaxLength() );
+
+		info = info( "ab?c?" );
+		assertEquals( 1, info.getMinLength() );
+		assertEquals( 3, info.getMaxLength() );
+
+		info = info( "ab+" );
+		assertEquals( 2, info.getMinLength() );
+		assertEquals( PatternInfo.UNBOUNDED, info.getMaxLength() );
+
+		info = info( "^a$" );
+		assertEquals( 1, info.getMinLength() );
+		assertEquals( 1, info.getMaxLength() );
+
+		//the backreference might be empty
+		info = info( "(?<x>a?)b\\k<x>" );
+		assertEquals( 1, info.getMinLength() );
+		assertEquals( PatternInfo.UNBOUNDED, info.getMaxLength() );
+		assertTrue( info.hasBackReferences() );
+	}
+
+	@Test
+	public void testAnchoring() {
+		assertTrue( info( "^ab" ).isAnchoredAtLineStart() );
+		assertFalse( info( "^ab" ).isAnchoredAtLastMatch() );
+		assertTrue( info( "\\Gab" ).isAnchoredAtLastMatch() );
+		assertTrue( info( "ab\\z" ).isAnchoredAtEndOfInput() );
+		assertFalse( info( "ab" ).isAnchoredAtLineStart() );
+		assertFalse( info( "ab" ).hasBackReferences() );
+	}
+
+	@Test
+	public void testLiterals() {
+		PatternInfo info = info( "abc[0-9]+xyz" );
+		assertEquals( "abc", info.getLiteralPrefix() );
+		assertEquals( "xyz", info.getLiteralSuffix() );
+
+		info = info( "^a(?:b|c)$" );
+		assertEquals( "a", info.getLiteralPrefix() );
+		assertEquals( "", info.getLiteralSuffix() );
+
+		info = info( "(?:ab)+" );
+		assertEquals( "ab", info.getLiteralPrefix() );
+		assertEquals( "ab", info.getLiteralSuffix() );
+
+		info = info( "a*" );
+		assertEquals( "", info.getLiteralPrefix() );
+		assertEquals( "", info.getLiteralSuffix() );
+		assertNull( info.getFirstCodePoints() );
+
+		info = info( "[xy]a|ba" );
+		assertEquals( "", info.getLiteralPrefix() );
+		assertEquals( "a", info.getLiteralSuffix() );
+		assertNotNull( info.getFirstCodePoints() );
+		assertTrue( info.getFirstCodePoints().contains( 'x' ) );
+		assertFalse( info.getFirstCodePoints().contains( 'a' ) );
+	}
+
+	@Test
+	public void testLengthRejection() {
+		MoaMatcher matcher = MoaPattern.compile( "[A-Z][A-Z][0-9][0-9][0-9]" ).matcher( "AB12" );
+		assertFalse( matcher.matches() );
+		assertTrue( matcher.hitEnd() );
+		matcher.reuse( "AB1234" );
+		assertFalse( matcher.matches() );
+		assertFalse( matcher.hitEnd() );
+		matcher.reuse( "AB123" );
+		assertTrue( matcher.matches() );
+	}
+
+	private static PatternInfo info(String regex) {
+		return MoaPattern.compile( regex ).getInfo();
+	}
+
+}
@@ -0,0 +1,172 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import java.util.regex.Pattern;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.moa.edgegraph.FrozenEdgeGraph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class RepetitionTest {
+
+	@Test
+	public void testParser() {
+		assertEquals( "a{3}", Regex.str( "a" ).repeat( 3 ).toString() );
+		assertEquals( "a{2,5}", MoaPattern.compile( "a{2,5}" ).toString() );
+
+		MoaPattern pattern = MoaPattern.compile( "x{2,}" );
+		assertFalse( pattern.matcher( "x" ).matches() );
+		assertTrue( pattern.matcher( "xx" ).matches() );
+		assertTrue( pattern.matcher( "xxxxxxxxxx" ).matches() );
+
+		pattern = MoaPattern.compile( "ab{0,2}c" );
+		assertTrue( pattern.matcher( "ac" ).matches() );
+		assertTrue( pattern.matcher( "abbc" ).matches() );
+		assertFalse( pattern.matcher( "abbbc" ).matches() );
+
+		//braces that are no repetition are still read literally
+		assertTrue( MoaPattern.compile( "a{b}" ).matcher( "a{b}" ).matches() );
+		assertTrue( MoaPattern.compile( "a\\{2\\}" ).matcher( "a{2}" ).matches() );
+	}
+
+	@Test
+	public void testDSL() {
+		MoaPattern pattern = MoaPattern.compile( Regex.digit().repeat( 1, 3 ).and( "-" ).and( Regex.str( "ab" ).atLeast( 2 ) ) );
+		assertTrue( pattern.matcher( "123-abab" ).matches() );
+		assertTrue( pattern.matcher( "1-ababab" ).matches() );
+		assertFalse( pattern.matcher( "1234-abab" ).matches() );
+		assertFalse( pattern.matcher( "1-ab" ).matches() );
+
+		TestUtil.assertDet( Regex.str( "a" ).repeat( 2 ).plus() );
+		//a run of 2 a's could either be left or go on with the next one
+		TestUtil.assertNonDet( Regex.str( "a" ).repeat( 2, 3 ).plus() );
+		TestUtil.assertNonDet( Regex.str( "a" ).repeat( 1, 3 ).and( "a" ) );
+	}
+
+	@Test
+	public void testStateCount() {
+		//SRC, SNK and a single counted state
+		assertEquals( 3, FrozenEdgeGraphTest.frozen( "[a-f0-9]{64}" ).getStateCount() );
+		assertEquals( 3, FrozenEdgeGraphTest.frozen( "\\d{1,12}" ).getStateCount() );
+
+		FrozenEdgeGraph edges = FrozenEdgeGraphTest.frozen( "x\\d{2,4}" );
+		assertEquals( 3, edges.getMinMatchLength() );
+		assertEquals( 5, edges.getMaxMatchLength() );
+		assertEquals( FrozenEdgeGraph.UNBOUNDED, FrozenEdgeGraphTest.frozen( "\\d{2,}" ).getMaxMatchLength() );
+		//the table has a state for every count
+		assertNotNull( edges.getDfa() );
+		assertEquals( edges.getStateCount() + 3, edges.getDfa().getStateCount() );
+	}
+
+	@Test
+	public void testAgainstJava() {
+		String[] regexes = new String[] {
+				"a{3}",
+				"[ab]{2,4}c",
+				"x[a-c]{3}y",
+				"\\d{1,3}x",
+				"a{0,2}b",
+				"b{2}a{1,2}",
+				"[^x]{2}y",
+				"[abc]{2,}1",
+				"(x)a{2,3}",
+				"(?:xa{2,3}b)+",
+				"(a)\\1{3}",
+				"(ab)\\1{2}",
+				"(a)\\1{2,3}",
+				"(?:(a)\\1){2}"
+		};
+		String[] inputs = new String[] {
+				"",
+				"aaaa",
+				"abbac",
+				"xabcyxaby",
+				"12x1234x",
+				"ab aab aaab",
+				"bbaaabba",
+				"xayaay",
+				"abcabc1",
+				"xaa xaaa",
+				"xaabxaaab xab",
+				"aaa",
+				"aaaaa",
+				"aaaaaa",
+				"ababab",
+				"abababab"
+		};
+		for ( String regex : regexes ) {
+			MoaPattern pattern = MoaPattern.compile( regex );
+			Pattern javaPattern = Pattern.compile( regex );
+			for ( String input : inputs ) {
+				TestUtil.assertSameMatches( regex + " " + input, javaPattern, pattern.matcher( input ), input );
+				assertEquals( regex + " " + input, javaPattern.matcher( input ).matches(), pattern.matcher( input ).matches() );
+			}
+		}
+	}
+
+	@Test
+	public void testCapturingGroups() {
+		MoaMatcher matcher = MoaPattern.compile( "(?<x>[ab]{2})c\\k<x>" ).matcher( "abcab" );
+		assertTrue( matcher.matches() );
+		assertEquals( "ab", matcher.getVariableContent( "x" ) );
+
+		//the copies of an unrolled group share the group, it keeps the last repetition
+		matcher = MoaPattern.compile( "(?:(a|b)c){2,3}" ).matcher( "acbc" );
+		assertTrue( matcher.matches() );
+		assertEquals( "b", matcher.getVariableContent( 1 ) );
+
+		matcher = MoaPattern.compile( "(a{2})(b)" ).matcher( "aab" );
+		assertTrue( matcher.matches() );
+		assertEquals( "aa", matcher.getVariableContent( 1 ) );
+		assertEquals( "b", matcher.getVariableContent( 2 ) );
+	}
+
+	@Test
+	public void testHitEnd() {
+		MoaMatcher matcher = MoaPattern.compile( "a{2,3}" ).matcher( "a" );
+		assertFalse( matcher.matches() );
+		assertTrue( matcher.hitEnd() );
+
+		matcher.reuse( "aa" );
+		assertTrue( matcher.matches() );
+		assertTrue( matcher.hitEnd() );
+
+		//nothing can follow the third a
+		matcher.reuse( "aaa" );
+		assertTrue( matcher.matches() );
+		assertFalse( matcher.hitEnd() );
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+import java.util.regex.Pattern;
+
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.moa.edgegraph.RequiredLiteral;
+import com.github.s4ke.moar.util.IntCharSeq;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class RequiredLiteralTest {
+
+	private static final String INPUT = "2016-05-01 ERROR user=martin failed\n" +
+			"2016-05-01 INFO user=bob thee theee\n" +
+			"ERR ERRO ERROR: the end usd 12.00";
+
+	@Test
+	public void testExtraction() {
+		assertLiteral( "ERROR", true, "ERROR" );
+		assertLiteral( "ERROR", true, "^ERROR" );
+		assertLiteral( " user=", false, "[a-z]+ user=[a-z]+" );
+		assertLiteral( "the", true, "th(e)\\1+" );
+		assertLiteral( "usd ", true, "usd [\\+\\-]?[0-9]+\\.[0-9][0-9]" );
+		assertLiteral( "ab", false, "a+b" );
+		assertLiteral( "b", false, "(a|b)b" );
+		assertLiteral( null, false, "a|b" );
+		assertLiteral( null, false, "a*" );
+		assertLiteral( null, false, "[0-9]+" );
+	}
+
+	@Test
+	public void testSameResultsAsJava() {
+		String[] regexes = new String[] {
+				"ERROR",
+				"^ERROR",
+				"user=[a-z]+",
+				"[a-z]+ user=",
+				"th(e)\\1+",
+				"ERROR:?",
+				"usd [0-9]+\\.[0-9][0-9]",
+				"a+b",
+				"notInThere"
+		};
+		for ( String regex : regexes ) {
+			Pattern javaPattern = Pattern.compile( regex, Pattern.MULTILINE );
+			TestUtil.assertSameMatches( regex, javaPattern, MoaPattern.compile( regex ).matcher( INPUT ), INPUT );
+		}
+	}
+
+	@Test
+	public void testMatches() {
+		MoaPattern pattern = MoaPattern.compile( "[a-z]+ user=[a-z]+" );
+		assertTrue( pattern.matcher( "some user=bob" ).matches() );
+		assertFalse( pattern.matcher( "some usr=bob" ).matches() );
+		assertFalse( pattern.matcher( "some user=" ).matches() );
+
+		MoaPattern prefixPattern = MoaPattern.compile( "ERROR [a-z]+" );
+		assertTrue( prefixPattern.matcher( "ERROR abc" ).matches() );
+		assertFalse( prefixPattern.matcher( " ERROR abc" ).matches() );
+	}
+
+	@Test
+	public void testIndexOf() {
+		RequiredLiteral literal = requiredLiteral( "abab" );
+		IntCharSeq str = new IntCharSeq( "aabaabababab" );
+		assertEquals( 4, literal.indexOf( str, 0 ) );
+		assertEquals( 4, literal.indexOf( str, 4 ) );
+		assertEquals( 6, literal.indexOf( str, 5 ) );
+		assertEquals( 8, literal.indexOf( str, 7 ) );
+		assertEquals( -1, literal.indexOf( str, 9 ) );
+	}
+
+	private static void assertLiteral(String expected, boolean prefix, String regex) {
+		RequiredLiteral literal = requiredLiteral( regex );
+		if ( expected == null ) {
+			assertNull( regex, literal );
+		}
+		else {
+			assertEquals( regex, expected, literal.toString() );
+			assertEquals( regex, prefix, literal.isPrefix() );
+		}
+	}
+
+	private static RequiredLiteral requiredLiteral(String regex) {
+		RequiredLiteral[] literal = new RequiredLiteral[1];
+		MoaPattern.compile( regex ).accessMoa( moa -> literal[0] = moa.getFrozenEdges().getRequiredLiteral() );
+		return literal[0];
+	}
+
+}
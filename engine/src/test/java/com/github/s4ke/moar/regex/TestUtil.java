@@ -23,6 +23,12 @@
  */
 package com.github.s4ke.moar.regex;
 
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaUtf8Matcher;
 import com.github.s4ke.moar.NonDeterministicException;
 import com.github.s4ke.moar.moa.Moa;
 
@@ -63,4 +69,44 @@ public class TestUtil {
 	public static void assertDet(Regex regex) {
 		regex.toMoa();
 	}
+
+	/**
+	 * checks that the matcher finds the same matches with the same groups as java.util.regex does on the
+	 * given input. The positions are compared in code points ({@link MoaMatcher}) or bytes ({@link MoaUtf8Matcher})
+	 */
+	public static void assertSameMatches(String message, Pattern javaPattern, MoaMatcher moaMatcher, String input) {
+		Matcher javaMatcher = javaPattern.matcher( input );
+		while ( javaMatcher.find() ) {
+			Assert.assertTrue( message, moaMatcher.nextMatch() );
+			Assert.assertEquals( message, position( moaMatcher, input, javaMatcher.start() ), moaMatcher.getStart() );
+			Assert.assertEquals( message, position( moaMatcher, input, javaMatcher.end() ), moaMatcher.getEnd() );
+			for ( int i = 1; i <= javaMatcher.groupCount(); ++i ) {
+				Assert.assertEquals( message, javaMatcher.group( i ), moaMatcher.getVariableContent( i ) );
+			}
+		}
+		Assert.assertFalse( message, moaMatcher.nextMatch() );
+	}
+
+	/**
+	 * checks that both matchers find the same matches on their input. Stops after the first empty match
+	 * as matching again would just find the same empty match over and over
+	 */
+	public static void assertSameMatches(String message, MoaMatcher expected, MoaMatcher actual) {
+		while ( expected.nextMatch() ) {
+			Assert.assertTrue( message, actual.nextMatch() );
+			Assert.assertEquals( message, expected.getStart(), actual.getStart() );
+			Assert.assertEquals( message, expected.getEnd(), actual.getEnd() );
+			if ( expected.getStart() == expected.getEnd() ) {
+				return;
+			}
+		}
+		Assert.assertFalse( message, actual.nextMatch() );
+	}
+
+	private static int position(MoaMatcher moaMatcher, String input, int index) {
+		if ( moaMatcher instanceof MoaUtf8Matcher ) {
+			return input.substring( 0, index ).getBytes( StandardCharsets.UTF_8 ).length;
+		}
+		return input.codePointCount( 0, index );
+	}
 }
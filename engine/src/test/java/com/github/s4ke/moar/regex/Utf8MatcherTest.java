@@ -0,0 +1,177 @@
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2016 Martin Braun
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.s4ke.moar.regex;
+
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.github.s4ke.moar.MoaMatcher;
+import com.github.s4ke.moar.MoaPattern;
+import com.github.s4ke.moar.MoaUtf8Matcher;
+import com.github.s4ke.moar.moa.edgegraph.Utf8Dfa;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Braun
+ */
+public class Utf8MatcherTest {
+
+	private static final String ALPHABET = "abä€ 😀 ";
+
+	@Test
+	public void testByteOffsets() {
+		byte[] bytes = "xäözü".getBytes( StandardCharsets.UTF_8 );
+		MoaUtf8Matcher matcher = MoaPattern.compile( "[ä-ü]+" ).matcher( bytes, 0, bytes.length );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 1, matcher.getStart() );
+		assertEquals( 5, matcher.getEnd() );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 6, matcher.getStart() );
+		assertEquals( 8, matcher.getEnd() );
+		assertFalse( matcher.nextMatch() );
+
+		//positions are relative to the offset
+		matcher = MoaPattern.compile( "z" ).matcher( bytes, 1, 7 );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 4, matcher.getStart() );
+		assertEquals( "äö_ü", matcher.replaceAll( "_" ) );
+
+		//patterns with capturing groups are decoded, the offsets are still in bytes
+		matcher = MoaPattern.compile( "(€+)x" ).matcher( "a€€x".getBytes( StandardCharsets.UTF_8 ), 0, 8 );
+		assertTrue( matcher.nextMatch() );
+		assertEquals( 1, matcher.getStart() );
+		assertEquals( 8, matcher.getEnd() );
+		assertEquals( "€€", matcher.getVariableContent( 1 ) );
+	}
+
+	@Test
+	public void testByteBuffer() {
+		byte[] bytes = "äbäb".getBytes( StandardCharsets.UTF_8 );
+		ByteBuffer heap = ByteBuffer.wrap( bytes );
+		heap.position( 2 );
+		ByteBuffer direct = ByteBuffer.allocateDirect( bytes.length );
+		direct.put( bytes ).flip();
+		direct.position( 2 );
+		for ( ByteBuffer buffer : new ByteBuffer[] {heap, direct} ) {
+			MoaUtf8Matcher matcher = MoaPattern.compile( "äb" ).matcher( buffer );
+			assertTrue( matcher.nextMatch() );
+			assertEquals( 1, matcher.getStart() );
+			assertEquals( 4, matcher.getEnd() );
+			assertEquals( 2, buffer.position() );
+			assertFalse( matcher.reuse( bytes, 0, 2 ).matches() );
+			assertTrue( matcher.hitEnd() );
+		}
+	}
+
+	@Test
+	public void testReuseDecoded() {
+		//the line bounds need the interpreter, which matches on the decoded input
+		MoaPattern pattern = MoaPattern.compile( "^b+" );
+		MoaUtf8Matcher matcher = pattern.matcher( new byte[0], 0, 0 );
+		String[] inputs = new String[] {"b\nab", "ab\nb", "a\nbb€", "bb", "€\nb", ""};
+		for ( String input : inputs ) {
+			byte[] bytes = input.getBytes( StandardCharsets.UTF_8 );
+			matcher.reuse( bytes, 0, bytes.length );
+			MoaMatcher codePointMatcher = pattern.matcher( input );
+			boolean found;
+			do {
+				found = codePointMatcher.nextMatch();
+				assertEquals( input, found, matcher.nextMatch() );
+				if ( found ) {
+					assertEquals( input, byteOffset( input, codePointMatcher.getStart() ), matcher.getStart() );
+					assertEquals( input, byteOffset( input, codePointMatcher.getEnd() ), matcher.getEnd() );
+				}
+			}
+			while ( found );
+		}
+	}
+
+	@Test
+	public void testTable() {
+		Utf8Dfa dfa = FrozenEdgeGraphTest.frozen( ".+" ).getDfa().getUtf8Dfa();
+		assertNotNull( dfa );
+		//a handful of states for the partial sequences, shared between all of .'s code points
+		assertTrue( dfa.getStateCount() < 16 );
+		assertFalse( dfa.isFirstByte( 0x80 ) );
+		assertFalse( dfa.isFirstByte( 0xC0 ) );
+		assertFalse( dfa.isFirstByte( 0xF8 ) );
+
+		//surrogates can't be encoded
+		byte[] surrogate = new byte[] {(byte) 0xED, (byte) 0xA0, (byte) 0x80};
+		assertFalse( MoaPattern.compile( "." ).matcher( surrogate, 0, surrogate.length ).matches() );
+	}
+
+	@Test
+	public void testSameResultsAsCodePoints() {
+		String[] regexes = new String[] {
+				"€+",
+				"[^a]ä",
+				".b",
+				"(?:ä|€)+",
+				"\\S\\s",
+				"a| ",
+				"(a)€",
+				"^ä+"
+		};
+		for ( String regex : regexes ) {
+			MoaPattern pattern = MoaPattern.compile( regex );
+			for ( String input : DfaTest.strings( ALPHABET, 4 ) ) {
+				String message = regex + " " + input;
+				byte[] bytes = input.getBytes( StandardCharsets.UTF_8 );
+				MoaMatcher codePointMatcher = pattern.matcher( input );
+				MoaUtf8Matcher byteMatcher = pattern.matcher( bytes, 0, bytes.length );
+				assertEquals( message, codePointMatcher.matches(), byteMatcher.matches() );
+				assertEquals( message, codePointMatcher.hitEnd(), byteMatcher.hitEnd() );
+
+				codePointMatcher.reuse( input );
+				byteMatcher.reuse( bytes, 0, bytes.length );
+				boolean found;
+				do {
+					found = codePointMatcher.nextMatch();
+					assertEquals( message, found, byteMatcher.nextMatch() );
+					assertEquals( message, codePointMatcher.hitEnd(), byteMatcher.hitEnd() );
+					if ( found ) {
+						assertEquals( message, byteOffset( input, codePointMatcher.getStart() ), byteMatcher.getStart() );
+						assertEquals( message, byteOffset( input, codePointMatcher.getEnd() ), byteMatcher.getEnd() );
+					}
+				}
+				while ( found );
+
+				assertEquals( message, codePointMatcher.replaceAll( "x" ), byteMatcher.replaceAll( "x" ) );
+			}
+		}
+	}
+
+	private static int byteOffset(String str, int codePoints) {
+		return str.substring( 0, str.offsetByCodePoints( 0, codePoints ) ).getBytes( StandardCharsets.UTF_8 ).length;
+	}
+
+}
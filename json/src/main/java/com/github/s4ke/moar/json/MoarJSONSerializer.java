@@ -107,7 +107,12 @@ public final class MoarJSONSerializer {
 				int idx = stateObj.getInt( "idx" );
 				State state;
 				if ( stateObj.has( "name" ) ) {
-					state = new BasicState( idx, stateObj.getString( "name" ) );
+					state = new BasicState(
+							idx,
+							stateObj.getString( "name" ),
+							stateObj.optInt( "minCount", 1 ),
+							stateObj.optInt( "maxCount", 1 )
+					);
 				}
 				else if ( stateObj.has( "ref" ) ) {
 					state = new VariableState( idx, stateObj.getString( "ref" ) );
@@ -126,7 +131,14 @@ public final class MoarJSONSerializer {
 					else {
 						setDescriptor = CharacterClassesUtils.getFn( setString );
 					}
-					state = new SetState( idx, 1, setDescriptor, stateObj.getString( "set" ) );
+					state = new SetState(
+							idx,
+							1,
+							setDescriptor,
+							stateObj.getString( "set" ),
+							stateObj.optInt( "minCount", 1 ),
+							stateObj.optInt( "maxCount", 1 )
+					);
 				}
 				else {
 					throw new IllegalArgumentException(
@@ -194,6 +206,7 @@ public final class MoarJSONSerializer {
 		}
 
 		moa.setEdges( edgeGraph );
+		moa.setCaseInsensitive( jsonObject.optBoolean( "caseInsensitive", false ) );
 		moa.freeze();
 
 		String regexString = jsonObject.optString( "regex" );
@@ -210,6 +223,9 @@ public final class MoarJSONSerializer {
 			}
 			obj.put( "vars", varArray );
 		}
+		if ( moa.isCaseInsensitive() ) {
+			obj.put( "caseInsensitive", true );
+		}
 
 		{
 			JSONArray stateArray = new JSONArray();
@@ -236,6 +252,10 @@ public final class MoarJSONSerializer {
 				else {
 					throw new AssertionError();
 				}
+				if ( state.isCounted() ) {
+					stateObj.put( "minCount", state.getMinCount() );
+					stateObj.put( "maxCount", state.getMaxCount() );
+				}
 				stateArray.put( stateObj );
 			}
 			obj.put( "states", stateArray );
@@ -28,6 +28,7 @@ import com.github.s4ke.moar.MoaPattern;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -49,6 +50,29 @@ public class MoarJSONSerializerTest {
 		assertEquals( jsonString, MoarJSONSerializer.toJSON( fromJSON ) );
 	}
 
+	@Test
+	public void testCountedStates() {
+		MoaPattern pattern = MoaPattern.compile( "x[a-f0-9]{4,8}y{2}" );
+		String jsonString = MoarJSONSerializer.toJSON( pattern );
+		MoaPattern fromJSON = MoarJSONSerializer.fromJSON( jsonString );
+		assertTrue( fromJSON.matcher( "xab12yy" ).matches() );
+		assertFalse( fromJSON.matcher( "xab1yy" ).matches() );
+		assertFalse( fromJSON.matcher( "xab12y" ).matches() );
+
+		assertEquals( jsonString, MoarJSONSerializer.toJSON( fromJSON ) );
+	}
+
+	@Test
+	public void testCaseInsensitive() {
+		MoaPattern pattern = MoaPattern.compile( "(?<x>a[b-d])\\k<x>", MoaPattern.CASE_INSENSITIVE );
+		String jsonString = MoarJSONSerializer.toJSON( pattern );
+		MoaPattern fromJSON = MoarJSONSerializer.fromJSON( jsonString );
+		assertTrue( fromJSON.matcher( "aCAc" ).matches() );
+		assertFalse( fromJSON.matcher( "aCAd" ).matches() );
+
+		assertEquals( jsonString, MoarJSONSerializer.toJSON( fromJSON ) );
+	}
+
 	//TODO: maybe test JSON serialization of MOAs generated by the DSL?
 
 }